@@ -0,0 +1,119 @@
+// Load test for one hot wallet at a given shard count. Half the loops credit the wallet and half
+// debit it, at a fixed concurrency, and the two rates are reported separately:
+//
+//   credit  GET /verify/{new reference}; the mock Paystack reports every reference as a successful
+//           500.00 deposit by customer@example.com, so each call is one ledger credit
+//   debit   POST /withdrawal of 100.00 from customer@example.com (queued in the outbox)
+//
+// The shard count is set through PUT /wallet/shards before the run. A 5s credit-only warmup funds
+// the wallet. Run it once per shard count against the same instance started with
+// --paystack.use-mock-service=true:
+//
+//   java benchmark/HotWalletLoad.java [base-url] [shards] [concurrency] [seconds]
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class HotWalletLoad {
+    private static final String EMAIL = "customer@example.com";
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = (args.length > 0 ? args[0] : "http://localhost:8080") + "/api/v1/payments";
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpResponse<String> configured = client.send(HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/wallet/shards?email=" + EMAIL + "&shards=" + shards))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (configured.statusCode() != 200) {
+            throw new IllegalStateException("Could not set shard count: " + configured.body());
+        }
+
+        Supplier<HttpRequest> credit = () -> HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/verify/hot_" + UUID.randomUUID()))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        Supplier<HttpRequest> debit = () -> HttpRequest.newBuilder(URI.create(baseUrl + "/withdrawal"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + EMAIL + "\",\"amount\":100," +
+                        "\"recipient\":\"RCP_hot_wallet\",\"reason\":\"benchmark\"}"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<CompletableFuture<Void>> loops = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            loops.add(loop(client, credit, warmupEnd, new ArrayList<>(), new AtomicInteger()));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+
+        List<Long> credits = Collections.synchronizedList(new ArrayList<>());
+        List<Long> debits = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger creditErrors = new AtomicInteger();
+        AtomicInteger debitErrors = new AtomicInteger();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        loops.clear();
+        for (int i = 0; i < concurrency; i++) {
+            loops.add(i % 2 == 0 ?
+                    loop(client, credit, deadline, credits, creditErrors) :
+                    loop(client, debit, deadline, debits, debitErrors));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d shards, concurrency %d, %ds%n", shards, concurrency, seconds);
+        report("credits", credits, creditErrors, elapsed);
+        report("debits ", debits, debitErrors, elapsed);
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient client, Supplier<HttpRequest> request, long deadline,
+                                                List<Long> latencies, AtomicInteger errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(request.get(), HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    // A declined withdrawal is a 200 with "success":false
+                    if (failure != null || response.statusCode() >= 400 || response.body().contains("\"success\":false")) {
+                        errors.incrementAndGet();
+                    } else {
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, request, deadline, latencies, errors));
+    }
+
+    private static void report(String name, List<Long> latencies, AtomicInteger errors, double elapsed) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%s %6.0f/s, %d errors", name, sorted.size() / elapsed, errors.get());
+        if (!sorted.isEmpty()) {
+            System.out.printf("   p50 %6.1f ms   p99 %7.1f ms", percentile(sorted, 0.50), percentile(sorted, 0.99));
+        }
+        System.out.println();
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1)) / 1e6;
+    }
+}
@@ -0,0 +1,144 @@
+// Load test for the blocking request path while Paystack is slow. Runs a closed loop of
+// POST /deposit/initialize (one short insert, then a Paystack call with no connection held) at a
+// fixed concurrency, while probing GET /balance, which never calls Paystack, for the latency a
+// healthy endpoint sees under that load. Samples http.server.requests.active from the actuator
+// for the number of requests the server is actually working on at once.
+//
+// Start the application with the mock and a realistic Paystack delay, once per threading mode:
+//
+//   java -jar target/paystack-payment-processor-1.0.0.jar \
+//       --paystack.use-mock-service=true --paystack.mock-latency=500ms
+//   mvn -Pjava21 package && VIRTUAL_THREADS_ENABLED=true <java 21>/bin/java -jar target/... (same flags)
+//
+// then run (Java 17+, no dependencies):
+//
+//   java benchmark/PaystackLatencyLoad.java [base-url] [concurrency] [seconds]
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class PaystackLatencyLoad {
+    private static final Pattern ACTIVE_TASKS =
+            Pattern.compile("\"statistic\"\\s*:\\s*\"ACTIVE_TASKS\"\\s*,\\s*\"value\"\\s*:\\s*([0-9.]+)");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest deposit = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/payments/deposit/initialize"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"load@example.com\",\"amount\":100}"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        HttpRequest balance = HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/api/v1/payments/balance?email=probe@example.com"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        HttpRequest active = HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/actuator/metrics/http.server.requests.active"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        List<Long> loadLatencies = Collections.synchronizedList(new ArrayList<>());
+        List<Long> probeLatencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong maxActive = new AtomicLong();
+
+        // Warm up connections and the JIT before measuring
+        for (int i = 0; i < 50; i++) {
+            client.send(deposit, HttpResponse.BodyHandlers.discarding());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ScheduledExecutorService sampler = Executors.newScheduledThreadPool(2);
+        sampler.scheduleWithFixedDelay(() -> probeLatencies.add(timed(client, balance, errors)),
+                0, 50, TimeUnit.MILLISECONDS);
+        sampler.scheduleWithFixedDelay(() -> {
+            try {
+                Matcher matcher = ACTIVE_TASKS.matcher(client.send(active, HttpResponse.BodyHandlers.ofString()).body());
+                if (matcher.find()) {
+                    maxActive.accumulateAndGet((long) Double.parseDouble(matcher.group(1)), Math::max);
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+        }, 0, 100, TimeUnit.MILLISECONDS);
+
+        List<CompletableFuture<Void>> loops = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            loops.add(loop(client, deposit, deadline, loadLatencies, errors));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+        sampler.shutdownNow();
+
+        System.out.printf("concurrency %d, %ds: %d requests, %.0f req/s, %d errors%n", concurrency, seconds,
+                loadLatencies.size(), loadLatencies.size() / (double) seconds, errors.get());
+        System.out.println("deposit/initialize  " + summary(loadLatencies));
+        System.out.println("balance probe       " + summary(probeLatencies));
+        System.out.println("max in-flight on server: " + maxActive.get());
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient client, HttpRequest request, long deadline,
+                                                List<Long> latencies, AtomicInteger errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                    } else {
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, request, deadline, latencies, errors));
+    }
+
+    private static long timed(HttpClient client, HttpRequest request, AtomicInteger errors) {
+        long start = System.nanoTime();
+        try {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (Exception e) {
+            errors.incrementAndGet();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String summary(List<Long> latencies) {
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        if (sorted.isEmpty()) {
+            return "no samples";
+        }
+        Collections.sort(sorted);
+        return String.format("p50 %6.1f ms   p99 %7.1f ms   max %7.1f ms",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.get(sorted.size() - 1) / 1e6);
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1)) / 1e6;
+    }
+}
@@ -0,0 +1,103 @@
+// Load test for the high-traffic read endpoints, to compare the servlet deployment with the reactive
+// one (mvn -Preactive package, --spring.profiles.active=reactive) on the same machine and database.
+// Runs a closed loop of one endpoint at a fixed concurrency and reports throughput and latency:
+//
+//   balance  GET /balance for emails drawn from a large pool, so most reads miss the balance cache
+//   history  GET /user/{email}?limit=50 for one email with a long history
+//   verify   GET /verify/{reference} over a small set of references (mock Paystack)
+//
+// Usage (Java 17+, no dependencies):
+//
+//   java benchmark/ReadPathLoad.java [base-url] [balance|history|verify] [concurrency] [seconds] [history-email]
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class ReadPathLoad {
+    private static final int EMAIL_POOL = 100_000;
+    private static final int REFERENCE_POOL = 100;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = (args.length > 0 ? args[0] : "http://localhost:8080") + "/api/v1/payments";
+        String endpoint = args.length > 1 ? args[1] : "balance";
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        String historyEmail = args.length > 4 ? args[4] : "load@example.com";
+
+        Supplier<URI> target = switch (endpoint) {
+            case "balance" -> () -> URI.create(baseUrl + "/balance?email=bench"
+                    + ThreadLocalRandom.current().nextInt(EMAIL_POOL) + "@example.com");
+            case "history" -> () -> URI.create(baseUrl + "/user/" + historyEmail + "?limit=50");
+            case "verify" -> () -> URI.create(baseUrl + "/verify/BENCH_VERIFY_"
+                    + ThreadLocalRandom.current().nextInt(REFERENCE_POOL));
+            default -> throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        };
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger errors = new AtomicInteger();
+
+        // Warm up connections and the JIT before measuring
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<CompletableFuture<Void>> loops = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            loops.add(loop(client, target, warmupEnd, new ArrayList<>(), new AtomicInteger()));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        loops.clear();
+        for (int i = 0; i < concurrency; i++) {
+            loops.add(loop(client, target, deadline, latencies, errors));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%s, concurrency %d, %ds: %.0f req/s, %d errors%n",
+                endpoint, concurrency, seconds, sorted.size() / elapsed, errors.get());
+        if (!sorted.isEmpty()) {
+            System.out.printf("p50 %6.1f ms   p99 %7.1f ms   max %7.1f ms%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.get(sorted.size() - 1) / 1e6);
+        }
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient client, Supplier<URI> target, long deadline,
+                                                List<Long> latencies, AtomicInteger errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(target.get()).timeout(Duration.ofSeconds(60)).build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                    } else {
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, target, deadline, latencies, errors));
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1)) / 1e6;
+    }
+}
@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# Row insert throughput through POST /withdrawal/bulk. The wallet has no funds, so every item is
+# written as a FAILED transaction row and Paystack is never called; the timing is the database
+# pass. Run against a local instance (mock Paystack is fine) and compare the steady-state times.
+#
+#   benchmark/bulk-insert.sh [base-url] [items] [runs]
+set -euo pipefail
+
+BASE_URL=${1:-http://localhost:8080}
+ITEMS=${2:-10000}
+RUNS=${3:-20}
+PAYLOAD=$(mktemp)
+trap 'rm -f "$PAYLOAD"' EXIT
+
+python3 - "$ITEMS" > "$PAYLOAD" <<'PY'
+import json, sys
+items = int(sys.argv[1])
+print(json.dumps({"withdrawals": [
+    {"amount": 100, "recipient": "RCP_bench_%d" % i, "reason": "benchmark", "email": "bench-empty@example.com"}
+    for i in range(items)]}))
+PY
+
+for run in $(seq "$RUNS"); do
+    seconds=$(curl -s -o /dev/null -w "%{time_total}" -X POST "$BASE_URL/api/v1/payments/withdrawal/bulk" \
+        -H 'Content-Type: application/json' --data @"$PAYLOAD")
+    echo "run $run: ${seconds}s, $(python3 -c "print(int($ITEMS / $seconds))") rows/s"
+done
@@ -0,0 +1,59 @@
+-- Lookup latency on the transactions table with and without the V2 indexes.
+--
+--   psql "$DATABASE_URL" -v rows=10000000 -f benchmark/transaction-lookups.sql
+--
+-- Works in a scratch "bench" schema, copying the structure of public.transactions, so it can be
+-- pointed at any local database that has been migrated; the schema is dropped at the end.
+-- Compare the "Execution Time" lines of the two EXPLAIN ANALYZE runs of each query.
+
+\if :{?rows}
+\else
+\set rows 10000000
+\endif
+\timing on
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+
+-- Same columns, no indexes besides the primary key
+CREATE TABLE bench.transactions_unindexed (LIKE public.transactions INCLUDING DEFAULTS INCLUDING IDENTITY);
+ALTER TABLE bench.transactions_unindexed ADD PRIMARY KEY (id);
+
+-- 100k customers, one row per transaction spread over the last year
+INSERT INTO bench.transactions_unindexed (reference, type, status, amount, email, created_at, updated_at)
+SELECT 'REF_' || g,
+       CASE WHEN g % 3 = 0 THEN 'WITHDRAWAL' ELSE 'DEPOSIT' END,
+       CASE WHEN g % 50 = 0 THEN 'PENDING' WHEN g % 10 = 0 THEN 'FAILED' ELSE 'SUCCESS' END,
+       (g % 100000) / 100.0 + 50,
+       'user' || (g % 100000) || '@example.com',
+       now() - make_interval(secs => (:rows - g) * (31536000.0 / :rows)),
+       now()
+FROM generate_series(1, :rows) AS g;
+
+-- Same data with the indexes from V2__transaction_lookup_indexes.sql
+CREATE TABLE bench.transactions_indexed AS TABLE bench.transactions_unindexed;
+ALTER TABLE bench.transactions_indexed ADD PRIMARY KEY (id);
+CREATE UNIQUE INDEX ON bench.transactions_indexed (reference);
+CREATE INDEX ON bench.transactions_indexed (email, created_at);
+CREATE INDEX ON bench.transactions_indexed (status, created_at);
+
+ANALYZE bench.transactions_unindexed;
+ANALYZE bench.transactions_indexed;
+
+\echo '== findByReference =='
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench.transactions_unindexed WHERE reference = 'REF_4242424';
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench.transactions_indexed WHERE reference = 'REF_4242424';
+
+\echo '== History page: email, newest first =='
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench.transactions_unindexed
+    WHERE email = 'user4242@example.com' ORDER BY created_at DESC, id DESC LIMIT 51;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench.transactions_indexed
+    WHERE email = 'user4242@example.com' ORDER BY created_at DESC, id DESC LIMIT 51;
+
+\echo '== Reconciliation page: PENDING older than 15 minutes =='
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench.transactions_unindexed
+    WHERE status = 'PENDING' AND created_at < now() - interval '15 minutes' ORDER BY id LIMIT 200;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench.transactions_indexed
+    WHERE status = 'PENDING' AND created_at < now() - interval '15 minutes' ORDER BY id LIMIT 200;
+
+DROP SCHEMA bench CASCADE;
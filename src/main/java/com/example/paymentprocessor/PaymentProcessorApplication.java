@@ -2,9 +2,11 @@ package com.example.paymentprocessor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class PaymentProcessorApplication {
     public static void main(String[] args) {
         SpringApplication.run(PaymentProcessorApplication.class, args);
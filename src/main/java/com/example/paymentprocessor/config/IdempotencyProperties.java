@@ -0,0 +1,26 @@
+package com.example.paymentprocessor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "idempotency")
+@Component
+@Data
+public class IdempotencyProperties {
+
+    // How long a stored response is replayed for a repeated key
+    private Duration ttl = Duration.ofHours(24);
+    // How long a request holds its key before completing; a key whose holder crashed can be taken
+    // over after this. Must outlast the slowest handler, which is bounded by the Paystack call timeout.
+    private Duration inProgressLease = Duration.ofMinutes(1);
+    // Completed responses kept in memory so most replays skip the database
+    private long maxCachedResponses = 10_000;
+    // How long a repeated request waits for the first one before getting 409 Conflict
+    private Duration waitTimeout = Duration.ofSeconds(30);
+    // How often a request waiting on another node polls for its response
+    private Duration pollInterval = Duration.ofMillis(100);
+    private Duration cleanupInterval = Duration.ofHours(1);
+}
@@ -1,28 +1,91 @@
 package com.example.paymentprocessor.config;
 
 
+import com.example.paymentprocessor.service.AsyncPayStackService;
+import com.example.paymentprocessor.service.AsyncPayStackServiceImpl;
+import com.example.paymentprocessor.service.MockAsyncPaystackService;
 import com.example.paymentprocessor.service.MockPaystackService;
 import com.example.paymentprocessor.service.PayStackServiceImpl;
+import com.example.paymentprocessor.service.PaystackGuard;
+import com.example.paymentprocessor.service.PaystackReadRetrier;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class PaystackConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public OkHttpClient paystackHttpClient(PaystackProperties properties) {
+        PaystackProperties.Http http = properties.getHttp();
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(
+                        http.getMaxIdleConnections(), http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .connectTimeout(http.getConnectTimeout())
+                .readTimeout(http.getReadTimeout())
+                .writeTimeout(http.getWriteTimeout())
+                .callTimeout(http.getCallTimeout())
+                .retryOnConnectionFailure(http.isRetryOnConnectionFailure())
+                .protocols(http.isHttp2Enabled() ?
+                        List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) :
+                        List.of(Protocol.HTTP_1_1))
+                .build();
+    }
+
+    // For AsyncPayStackServiceImpl. The executor only runs completions, never waits on a call; the
+    // call timeout is applied per call. Idle connections follow the jdk.httpclient.keepalive.timeout
+    // and jdk.httpclient.connectionPoolSize system properties.
+    @Bean
+    public HttpClient paystackAsyncHttpClient(PaystackProperties properties, WorkerThreadFactory threadFactory) {
+        PaystackProperties.Http http = properties.getHttp();
+        return HttpClient.newBuilder()
+                .executor(Executors.newCachedThreadPool(threadFactory.named("paystack-async-")))
+                .connectTimeout(http.getConnectTimeout())
+                .version(http.isHttp2Enabled() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    // OkHttp3ClientHttpRequestFactory is deprecated in Spring 6.1 but is still the
+    // only built-in factory that lets us own the OkHttp connection pool.
+    @Bean
+    @SuppressWarnings("removal")
+    public RestTemplate restTemplate(OkHttpClient paystackHttpClient) {
+        return new RestTemplate(new OkHttp3ClientHttpRequestFactory(paystackHttpClient));
     }
 
     @Bean
     @Primary
     public PayStackServiceImpl paystackService(
             PaystackProperties properties,
-            RestTemplate restTemplate) {
+            RestTemplate restTemplate,
+            PaystackGuard guard,
+            PaystackReadRetrier reads) {
+        return properties.isUseMockService() ?
+                new MockPaystackService(properties, restTemplate, guard, reads) :
+                new PayStackServiceImpl(properties, restTemplate, guard, reads);
+    }
+
+    @Bean
+    public AsyncPayStackService asyncPaystackService(
+            PaystackProperties properties,
+            HttpClient paystackAsyncHttpClient,
+            ObjectMapper objectMapper,
+            RestTemplate restTemplate,
+            PaystackGuard guard,
+            PaystackReadRetrier reads) {
         return properties.isUseMockService() ?
-                new MockPaystackService(properties, restTemplate) :
-                new PayStackServiceImpl(properties, restTemplate);
+                new MockAsyncPaystackService(properties, restTemplate, guard, reads) :
+                new AsyncPayStackServiceImpl(properties, paystackAsyncHttpClient, objectMapper, guard);
     }
-}
\ No newline at end of file
+}
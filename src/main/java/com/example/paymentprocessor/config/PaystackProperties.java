@@ -5,6 +5,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "paystack")
 @Component
 @Data
@@ -13,4 +15,122 @@ public class PaystackProperties {
     @Value("${paystack.api.key}")
     private String apiKey;
     private boolean useMockService = false;
-}
\ No newline at end of file
+    // Delay added to every mock Paystack call, to load test with realistic round-trip times
+    private Duration mockLatency = Duration.ZERO;
+    private Http http = new Http();
+    private Webhook webhook = new Webhook();
+    private Verify verify = new Verify();
+    private Banks banks = new Banks();
+    private BatchVerify batchVerify = new BatchVerify();
+    private BulkTransfer bulkTransfer = new BulkTransfer();
+    private TransferOutbox transferOutbox = new TransferOutbox();
+    private Protection protection = new Protection();
+    private ReadRetry readRetry = new ReadRetry();
+
+    @Data
+    public static class Http {
+        private int maxIdleConnections = 20;
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        private Duration readTimeout = Duration.ofSeconds(10);
+        private Duration writeTimeout = Duration.ofSeconds(10);
+        private Duration callTimeout = Duration.ofSeconds(20);
+        private boolean http2Enabled = true;
+        // Calls made through AsyncPayStackService in flight at once; further calls queue, holding no thread
+        private int maxAsyncRequests = 256;
+        // OkHttp would silently resend any request, POSTs included, after some connection failures.
+        // Off, so reads are retried by PaystackReadRetrier and transfers only by the outbox.
+        private boolean retryOnConnectionFailure = false;
+    }
+
+    @Data
+    public static class Webhook {
+        private int workerThreads = 4;
+        private int queueCapacity = 1000;
+        // Events not picked up by a worker within this time (queue full, restart) are dispatched again
+        private Duration retryAfter = Duration.ofMinutes(1);
+        private int maxAttempts = 5;
+        // Directory of captured payloads to feed through the pipeline at startup, for local testing
+        private String replayDir;
+    }
+
+    @Data
+    public static class Verify {
+        // Completed verifications are answered from memory for this long; zero disables it
+        private Duration memoWindow = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Banks {
+        // Past the TTL a request fetches the list itself, falling back to the stale copy on error;
+        // after a failed fetch requests serve the stale copy until the next refresh check
+        private Duration ttl = Duration.ofHours(24);
+        private Duration refreshAfter = Duration.ofHours(20);
+        private Duration refreshCheckInterval = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class BatchVerify {
+        // Verify calls in flight to Paystack across all batch requests
+        private int maxConcurrency = 16;
+        private int maxReferences = 500;
+    }
+
+    @Data
+    public static class BulkTransfer {
+        // Paystack accepts at most 100 transfers per bulk request
+        private int chunkSize = 100;
+        private int maxItems = 10000;
+    }
+
+    @Data
+    public static class TransferOutbox {
+        // Paystack calls in flight for queued withdrawals
+        private int workerThreads = 4;
+        private int batchSize = 50;
+        // Picks up retries and withdrawals queued by other nodes
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // A claimed withdrawal not settled within this is sent again. Raised per claim to cover a full
+        // batch of calls that all time out, so it is a floor for the batch sizes and call timeout.
+        private Duration lease = Duration.ofMinutes(2);
+        private int maxAttempts = 8;
+        private Duration initialBackoff = Duration.ofSeconds(5);
+        private Duration maxBackoff = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Protection {
+        private boolean enabled = true;
+        // Adaptive in-flight limit per endpoint; calls over it are rejected rather than queued
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        // Latency up to this multiple of the long-term average does not shrink the limit
+        private double rttTolerance = 2.0;
+        // Circuit breaker per endpoint, over the outcomes of the last window-size calls
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private int failureRatePercent = 50;
+        // Calls that succeed but take longer than this count as failures
+        private Duration slowCallThreshold = Duration.ofSeconds(5);
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 5;
+    }
+
+    @Data
+    public static class ReadRetry {
+        // Attempts per read, the first included
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        // A read fails this long after it began, mid-attempt if need be; no retry or hedge starts past it
+        private Duration timeBudget = Duration.ofSeconds(3);
+        // Retries and hedges allowed per read on average, with bursts of up to budget-max-tokens
+        private double budgetRatio = 0.1;
+        private int budgetMaxTokens = 10;
+        // A read slower than this percentile of recent ones gets a second attempt in parallel
+        private boolean hedgeEnabled = true;
+        private double hedgePercentile = 0.95;
+        private Duration minHedgeDelay = Duration.ofMillis(50);
+    }
+}
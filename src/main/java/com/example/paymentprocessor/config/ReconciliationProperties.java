@@ -0,0 +1,21 @@
+package com.example.paymentprocessor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "reconciliation")
+@Component
+@Data
+public class ReconciliationProperties {
+
+    private boolean enabled = true;
+    private Duration interval = Duration.ofMinutes(5);
+    // Deposits younger than this may still be on the checkout page and are left alone
+    private Duration minAge = Duration.ofMinutes(15);
+    private int pageSize = 200;
+    private int parallelism = 4;
+    private int maxRequestsPerSecond = 10;
+}
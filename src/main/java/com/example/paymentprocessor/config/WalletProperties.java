@@ -0,0 +1,36 @@
+package com.example.paymentprocessor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "wallet")
+@Component
+@Data
+public class WalletProperties {
+
+    private Ledger ledger = new Ledger();
+    private Sharding sharding = new Sharding();
+    private BalanceCache balanceCache = new BalanceCache();
+
+    @Data
+    public static class Ledger {
+        private Duration compactionInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Sharding {
+        private int maxShards = 64;
+        // How often credit routing picks up shard count changes made on other nodes
+        private Duration refreshInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class BalanceCache {
+        private long maxSize = 100_000;
+        // Upper bound on how long a node can serve a balance changed by another node
+        private Duration maxStaleness = Duration.ofSeconds(5);
+    }
+}
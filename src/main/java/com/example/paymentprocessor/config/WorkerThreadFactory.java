@@ -0,0 +1,26 @@
+package com.example.paymentprocessor.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+// Threads for the worker pools that call Paystack. With spring.threads.virtual.enabled on Java 21
+// they are virtual, so a worker waiting on Paystack does not hold a platform thread; pool sizes
+// still cap how many calls are in flight.
+@Component
+public class WorkerThreadFactory {
+    private final boolean virtual;
+
+    public WorkerThreadFactory(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public ThreadFactory named(String threadNamePrefix) {
+        return virtual ? new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory() :
+                new CustomizableThreadFactory(threadNamePrefix);
+    }
+}
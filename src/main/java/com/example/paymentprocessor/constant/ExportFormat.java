@@ -0,0 +1,18 @@
+package com.example.paymentprocessor.constant;
+
+import com.example.paymentprocessor.exception.PaymentException;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    NDJSON,
+    CSV;
+
+    public static ExportFormat fromParameter(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new PaymentException("Unsupported export format: " + value);
+        }
+    }
+}
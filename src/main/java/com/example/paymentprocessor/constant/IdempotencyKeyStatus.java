@@ -0,0 +1,6 @@
+package com.example.paymentprocessor.constant;
+
+public enum IdempotencyKeyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,21 @@
+package com.example.paymentprocessor.constant;
+
+public enum PaystackEndpoint {
+    INITIALIZE("/transaction/initialize"),
+    VERIFY("/transaction/verify"),
+    CREATE_RECIPIENT("/transferrecipient"),
+    TRANSFER("/transfer"),
+    BULK_TRANSFER("/transfer/bulk"),
+    VERIFY_TRANSFER("/transfer/verify"),
+    LIST_BANKS("/bank");
+
+    private final String path;
+
+    PaystackEndpoint(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.paymentprocessor.constant;
+
+public enum TransferOutboxStatus {
+    PENDING,
+    PROCESSING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,9 @@
+package com.example.paymentprocessor.constant;
+
+public enum WebhookEventStatus {
+    RECEIVED,
+    PROCESSING,
+    PROCESSED,
+    IGNORED,
+    FAILED
+}
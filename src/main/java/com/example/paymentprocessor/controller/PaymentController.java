@@ -1,60 +1,131 @@
 package com.example.paymentprocessor.controller;
 
 
+import com.example.paymentprocessor.constant.ExportFormat;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackRecipient;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.request.BatchVerificationRequest;
+import com.example.paymentprocessor.data.request.BulkWithdrawalRequest;
 import com.example.paymentprocessor.data.request.PaymentRequest;
+import com.example.paymentprocessor.data.request.TransactionFilter;
+import com.example.paymentprocessor.data.request.TransactionHistoryRequest;
 import com.example.paymentprocessor.data.request.TransferRecipientRequest;
 import com.example.paymentprocessor.data.request.TransferRequest;
 import com.example.paymentprocessor.data.response.ApiResponse;
 import com.example.paymentprocessor.data.response.TransactionDTO;
+import com.example.paymentprocessor.data.response.TransactionPage;
+import com.example.paymentprocessor.data.response.VerificationResult;
+import com.example.paymentprocessor.data.response.WithdrawalStatus;
+import com.example.paymentprocessor.service.BankListCache;
+import com.example.paymentprocessor.service.BatchVerificationService;
+import com.example.paymentprocessor.service.BulkWithdrawalService;
 import com.example.paymentprocessor.service.PaymentService;
 import com.example.paymentprocessor.service.PayStackServiceImpl;
+import com.example.paymentprocessor.service.TransactionExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+// With the reactive profile ReactivePaymentController serves these routes instead
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/payments")
 @Validated
 @Tag(name = "Payment Operations", description = "APIs for handling payments, deposits and withdrawals")
 public class PaymentController {
     private final PaymentService paymentService;
     private final PayStackServiceImpl paystackService;
+    private final BatchVerificationService batchVerificationService;
+    private final BulkWithdrawalService bulkWithdrawalService;
+    private final BankListCache bankListCache;
+    private final TransactionExportService transactionExportService;
 
-    public PaymentController(PaymentService paymentService, PayStackServiceImpl paystackService) {
+    public PaymentController(PaymentService paymentService, PayStackServiceImpl paystackService,
+                             BatchVerificationService batchVerificationService,
+                             BulkWithdrawalService bulkWithdrawalService, BankListCache bankListCache,
+                             TransactionExportService transactionExportService) {
         this.paymentService = paymentService;
         this.paystackService = paystackService;
+        this.batchVerificationService = batchVerificationService;
+        this.bulkWithdrawalService = bulkWithdrawalService;
+        this.bankListCache = bankListCache;
+        this.transactionExportService = transactionExportService;
     }
 
     @PostMapping("/deposit/initialize")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> initializeDeposit(
+    public ResponseEntity<ApiResponse<PaystackInitialization>> initializeDeposit(
             @Valid @RequestBody PaymentRequest request) {
         return ResponseEntity.ok(paymentService.initializeDeposit(request));
     }
 
     @GetMapping("/verify/{reference}")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> verifyTransaction(
+    public ResponseEntity<ApiResponse<PaystackTransaction>> verifyTransaction(
             @PathVariable String reference) {
         return ResponseEntity.ok(paymentService.verifyTransaction(reference));
     }
 
+    @PostMapping("/verify/batch")
+    @Operation(summary = "Verify many transactions concurrently")
+    public ResponseEntity<ApiResponse<List<VerificationResult>>> verifyTransactions(
+            @Valid @RequestBody BatchVerificationRequest request) {
+        List<VerificationResult> results = batchVerificationService.verifyAll(request.getReferences());
+        return ResponseEntity.ok(ApiResponse.<List<VerificationResult>>builder()
+            .success(true)
+            .message("Batch verification completed")
+            .data(results)
+            .timestamp(LocalDateTime.now())
+            .build());
+    }
+
     @PostMapping("/withdrawal")
+    @Operation(summary = "Debit the wallet and queue the withdrawal for sending to Paystack")
     public ResponseEntity<ApiResponse<Map<String, Object>>> initiateWithdrawal(
             @Valid @RequestBody TransferRequest request) {
-        return ResponseEntity.ok(paymentService.initiateWithdrawal(request));
+        ApiResponse<Map<String, Object>> response = paymentService.initiateWithdrawal(request);
+        return ResponseEntity.status(response.isSuccess() ? HttpStatus.ACCEPTED : HttpStatus.OK).body(response);
     }
 
-    @GetMapping("/user/{email}")
-    public ResponseEntity<ApiResponse<List<TransactionDTO>>> getUserTransactions(
-            @PathVariable @Email String email) {
-        List<TransactionDTO> transactions = paymentService.getUserTransactions(email);
+    @GetMapping("/withdrawal/{reference}")
+    @Operation(summary = "Status of a withdrawal and of its delivery to Paystack")
+    public ResponseEntity<ApiResponse<WithdrawalStatus>> getWithdrawal(@PathVariable String reference) {
+        return ResponseEntity.ok(ApiResponse.<WithdrawalStatus>builder()
+            .success(true)
+            .message("Withdrawal retrieved successfully")
+            .data(paymentService.getWithdrawalStatus(reference))
+            .timestamp(LocalDateTime.now())
+            .build());
+    }
+
+    @PostMapping("/withdrawal/bulk")
+    @Operation(summary = "Submit many withdrawals as one Paystack bulk transfer")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> initiateBulkWithdrawal(
+            @Valid @RequestBody BulkWithdrawalRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(bulkWithdrawalService.initiateBulkWithdrawal(request.getWithdrawals()));
+    }
+
+    @GetMapping("/withdrawal/bulk/{batchReference}")
+    @Operation(summary = "Per-item status of a bulk withdrawal")
+    public ResponseEntity<ApiResponse<List<TransactionDTO>>> getBulkWithdrawal(
+            @PathVariable String batchReference) {
+        List<TransactionDTO> transactions = paymentService.getBatchTransactions(batchReference);
         return ResponseEntity.ok(ApiResponse.<List<TransactionDTO>>builder()
             .success(true)
             .message("Transactions retrieved successfully")
@@ -63,15 +134,48 @@ public class PaymentController {
             .build());
     }
 
+    @GetMapping("/user/{email}")
+    @Operation(summary = "Page through a user's transactions, newest first")
+    public ResponseEntity<ApiResponse<TransactionPage>> getUserTransactions(
+            @PathVariable @Email String email, @Valid TransactionHistoryRequest request) {
+        TransactionPage page = paymentService.getUserTransactions(email, request);
+        return ResponseEntity.ok(ApiResponse.<TransactionPage>builder()
+            .success(true)
+            .message("Transactions retrieved successfully")
+            .data(page)
+            .timestamp(LocalDateTime.now())
+            .build());
+    }
+
+    @GetMapping("/user/{email}/export")
+    @Operation(summary = "Stream a user's full transaction history as NDJSON or CSV, oldest first")
+    public void exportUserTransactions(
+            @PathVariable @Email String email, TransactionFilter filter,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        boolean csv = exportFormat == ExportFormat.CSV;
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename("transactions." + (csv ? "csv" : "ndjson"))
+            .build()
+            .toString());
+        transactionExportService.export(email, filter, exportFormat, response.getOutputStream());
+    }
+
     @PostMapping("/recipients")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> createTransferRecipient(
+    public ResponseEntity<ApiResponse<PaystackRecipient>> createTransferRecipient(
             @Valid @RequestBody TransferRecipientRequest request) {
         return ResponseEntity.ok(paystackService.createTransferRecipient(request));
     }
 
     @GetMapping("/banks")
-    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> listBanks() {
-        return ResponseEntity.ok(paystackService.listBanks());
+    @Operation(summary = "List banks supported by Paystack (cached)")
+    public ResponseEntity<byte[]> listBanks() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(bankListCache.getSerializedResponse());
     }
 
     @GetMapping("/balance")
@@ -80,4 +184,12 @@ public class PaymentController {
             @RequestParam @Email(message = "Please provide a valid email address") String email) {
         return ResponseEntity.ok(paymentService.checkBalance(email));
     }
-}
\ No newline at end of file
+
+    @PutMapping("/wallet/shards")
+    @Operation(summary = "Spread a hot wallet's credits over several ledger shards")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> setWalletShards(
+            @RequestParam @Email(message = "Please provide a valid email address") String email,
+            @RequestParam int shards) {
+        return ResponseEntity.ok(paymentService.setWalletShards(email, shards));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.paymentprocessor.controller;
+
+import com.example.paymentprocessor.service.PaystackWebhookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// With the reactive profile ReactiveWebhookController serves these routes instead
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/webhooks")
+@Tag(name = "Webhooks", description = "Paystack event notifications")
+public class PaystackWebhookController {
+    private final PaystackWebhookService webhookService;
+
+    public PaystackWebhookController(PaystackWebhookService webhookService) {
+        this.webhookService = webhookService;
+    }
+
+    @PostMapping("/paystack")
+    @Operation(summary = "Receive a signed Paystack event")
+    public ResponseEntity<Void> receive(
+            @RequestBody byte[] payload,
+            @RequestHeader(value = "x-paystack-signature", required = false) String signature) {
+        if (!webhookService.isValidSignature(payload, signature)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        webhookService.ingest(payload);
+        return ResponseEntity.ok().build();
+    }
+}
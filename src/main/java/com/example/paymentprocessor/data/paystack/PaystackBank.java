@@ -0,0 +1,15 @@
+package com.example.paymentprocessor.data.paystack;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaystackBank(
+        String name,
+        String slug,
+        String code,
+        String longcode,
+        String country,
+        String currency,
+        String type,
+        boolean active) {
+}
@@ -0,0 +1,11 @@
+package com.example.paymentprocessor.data.paystack;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaystackInitialization(
+        @JsonProperty("authorization_url") String authorizationUrl,
+        @JsonProperty("access_code") String accessCode,
+        String reference) {
+}
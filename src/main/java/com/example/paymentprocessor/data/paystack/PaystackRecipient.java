@@ -0,0 +1,22 @@
+package com.example.paymentprocessor.data.paystack;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaystackRecipient(
+        @JsonProperty("recipient_code") String recipientCode,
+        String type,
+        String name,
+        String currency,
+        boolean active,
+        Details details) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Details(
+            @JsonProperty("account_number") String accountNumber,
+            @JsonProperty("account_name") String accountName,
+            @JsonProperty("bank_code") String bankCode,
+            @JsonProperty("bank_name") String bankName) {
+    }
+}
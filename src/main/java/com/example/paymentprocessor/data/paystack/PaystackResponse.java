@@ -0,0 +1,8 @@
+package com.example.paymentprocessor.data.paystack;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// Envelope around every Paystack API response
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaystackResponse<T>(boolean status, String message, T data) {
+}
@@ -0,0 +1,27 @@
+package com.example.paymentprocessor.data.paystack;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// A charge as returned by /transaction/verify and the charge.success webhook; amount is in kobo
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaystackTransaction(
+        String reference,
+        String status,
+        long amount,
+        String currency,
+        String channel,
+        @JsonProperty("gateway_response") String gatewayResponse,
+        @JsonProperty("paid_at") String paidAt,
+        Customer customer) {
+
+    public boolean succeeded() {
+        return "success".equalsIgnoreCase(status);
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Customer(
+            String email,
+            @JsonProperty("customer_code") String customerCode) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.paymentprocessor.data.paystack;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// A payout from /transfer or one item of /transfer/bulk; amount is in kobo
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PaystackTransfer(
+        String reference,
+        String status,
+        long amount,
+        String currency,
+        String reason,
+        String recipient,
+        @JsonProperty("transfer_code") String transferCode) {
+}
@@ -0,0 +1,23 @@
+package com.example.paymentprocessor.data.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Batch transaction verification request")
+public class BatchVerificationRequest {
+
+    @NotEmpty(message = "At least one reference is required")
+    @Schema(description = "Transaction references to verify", example = "[\"DEP_abc\", \"DEP_def\"]")
+    private List<@NotBlank String> references;
+}
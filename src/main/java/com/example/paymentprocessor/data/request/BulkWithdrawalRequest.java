@@ -0,0 +1,23 @@
+package com.example.paymentprocessor.data.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Bulk withdrawal request, e.g. a payroll run")
+public class BulkWithdrawalRequest {
+
+    @NotEmpty(message = "At least one withdrawal is required")
+    @Schema(description = "Withdrawals to pay out; each debits the wallet of its email")
+    private List<@Valid TransferRequest> withdrawals;
+}
@@ -0,0 +1,23 @@
+package com.example.paymentprocessor.data.request;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Lower bound, in naira, for a Money field; null passes, pair with @NotNull
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = MinAmountValidator.class)
+public @interface MinAmount {
+    long value();
+
+    String message() default "must be at least {value} naira";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,19 @@
+package com.example.paymentprocessor.data.request;
+
+import com.example.paymentprocessor.model.Money;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class MinAmountValidator implements ConstraintValidator<MinAmount, Money> {
+    private Money minimum;
+
+    @Override
+    public void initialize(MinAmount constraint) {
+        minimum = Money.ofNaira(constraint.value());
+    }
+
+    @Override
+    public boolean isValid(Money amount, ConstraintValidatorContext context) {
+        return amount == null || !amount.isLessThan(minimum);
+    }
+}
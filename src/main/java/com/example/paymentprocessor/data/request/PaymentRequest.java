@@ -1,13 +1,11 @@
 package com.example.paymentprocessor.data.request;
 
+import com.example.paymentprocessor.model.Money;
 import jakarta.validation.constraints.Email;
-import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 import lombok.Data;
 
-import java.math.BigDecimal;
-
 
 @Data
 @Builder
@@ -17,8 +15,8 @@ public class PaymentRequest {
     private String email;
     
     @NotNull
-    @Min(50)
-    private BigDecimal amount;
+    @MinAmount(50)
+    private Money amount;
     
     private String reference;
     private String callback_url;
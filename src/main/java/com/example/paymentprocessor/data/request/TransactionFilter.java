@@ -0,0 +1,25 @@
+package com.example.paymentprocessor.data.request;
+
+import com.example.paymentprocessor.constant.TransactionStatus;
+import com.example.paymentprocessor.constant.TransactionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// Query parameters shared by the transaction history and export endpoints; every filter is optional
+@Data
+public class TransactionFilter {
+    private TransactionType type;
+
+    private TransactionStatus status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    @Schema(description = "Only transactions created at or after this time")
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    @Schema(description = "Only transactions created before this time")
+    private LocalDateTime to;
+}
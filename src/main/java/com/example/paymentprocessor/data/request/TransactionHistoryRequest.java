@@ -0,0 +1,19 @@
+package com.example.paymentprocessor.data.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+// Query parameters of GET /user/{email}
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class TransactionHistoryRequest extends TransactionFilter {
+    @Schema(description = "nextCursor of the previous page")
+    private String cursor;
+
+    @Min(1)
+    @Max(200)
+    private int limit = 50;
+}
@@ -1,7 +1,7 @@
 package com.example.paymentprocessor.data.request;
 
+import com.example.paymentprocessor.model.Money;
 import jakarta.validation.constraints.Email;
-import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 import lombok.Data;
@@ -10,8 +10,8 @@ import lombok.Data;
 @Builder
 public class TransferRequest {
     @NotNull
-    @Min(100)
-    private Integer amount;
+    @MinAmount(100)
+    private Money amount;
     
     @NotNull
     private String recipient;
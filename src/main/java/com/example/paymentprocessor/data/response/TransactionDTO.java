@@ -2,20 +2,28 @@ package com.example.paymentprocessor.data.response;
 
 import com.example.paymentprocessor.constant.TransactionStatus;
 import com.example.paymentprocessor.constant.TransactionType;
+import com.example.paymentprocessor.model.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class TransactionDTO {
+    // Only used to build pagination cursors
+    @JsonIgnore
+    private Long id;
     private String reference;
     private TransactionType type;
     private TransactionStatus status;
-    private BigDecimal amount;
+    private Money amount;
     private String email;
     private LocalDateTime createdAt;
 }
\ No newline at end of file
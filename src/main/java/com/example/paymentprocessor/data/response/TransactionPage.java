@@ -0,0 +1,14 @@
+package com.example.paymentprocessor.data.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TransactionPage {
+    private List<TransactionDTO> transactions;
+    // Pass back as cursor for the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,14 @@
+package com.example.paymentprocessor.data.response;
+
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class VerificationResult {
+    private String reference;
+    private boolean success;
+    private String message;
+    private PaystackTransaction data;
+}
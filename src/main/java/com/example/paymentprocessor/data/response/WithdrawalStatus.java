@@ -0,0 +1,26 @@
+package com.example.paymentprocessor.data.response;
+
+import com.example.paymentprocessor.constant.TransactionStatus;
+import com.example.paymentprocessor.constant.TransferOutboxStatus;
+import com.example.paymentprocessor.model.Money;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class WithdrawalStatus {
+    private String reference;
+    private TransactionStatus status;
+    private Money amount;
+    private String email;
+    private String recipientCode;
+    // Delivery to Paystack; null for bulk withdrawals
+    private TransferOutboxStatus dispatchStatus;
+    private Integer attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -1,8 +1,10 @@
 package com.example.paymentprocessor.exception;
 
 import com.example.paymentprocessor.data.response.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,6 +26,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    // Paystack was not called, so the client can retry once the circuit or the limit allows it
+    @ExceptionHandler(PaystackUnavailableException.class)
+    public ResponseEntity<ApiResponse<Void>> handlePaystackUnavailable(PaystackUnavailableException ex) {
+        ApiResponse<Void> response = ApiResponse.<Void>builder()
+            .success(false)
+            .message(ex.getMessage())
+            .timestamp(LocalDateTime.now())
+            .build();
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .body(response);
+    }
+
     @ExceptionHandler(TransactionNotFoundException.class)
     public ResponseEntity<ApiResponse<Void>> handleTransactionException(TransactionNotFoundException ex) {
         ApiResponse<Void> response = ApiResponse.<Void>builder()
@@ -61,6 +77,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    // Malformed JSON, or an amount with more than two decimal places
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUnreadableMessage(HttpMessageNotReadableException ex) {
+        ApiResponse<Void> response = ApiResponse.<Void>builder()
+            .success(false)
+            .message("Malformed request body")
+            .timestamp(LocalDateTime.now())
+            .build();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<Void>> handleGenericException(Exception ex) {
         ApiResponse<Void> response = ApiResponse.<Void>builder()
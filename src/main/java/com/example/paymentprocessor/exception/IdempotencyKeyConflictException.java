@@ -0,0 +1,7 @@
+package com.example.paymentprocessor.exception;
+
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
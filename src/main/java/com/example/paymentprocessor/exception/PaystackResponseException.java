@@ -0,0 +1,20 @@
+package com.example.paymentprocessor.exception;
+
+// Paystack answered with an error status. A 4xx other than 429 means it refused the request;
+// anything else says nothing about whether a transfer was created.
+public class PaystackResponseException extends PaymentException {
+    private final int status;
+
+    public PaystackResponseException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isRefused() {
+        return status >= 400 && status < 500 && status != 429;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.paymentprocessor.exception;
+
+import java.time.Duration;
+
+// Thrown instead of calling Paystack while the endpoint's circuit is open or its concurrency limit
+// is reached. Nothing was sent, so the call is safe to retry after retryAfter.
+public class PaystackUnavailableException extends PaymentException {
+    private final Duration retryAfter;
+
+    public PaystackUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.paymentprocessor.filter;
+
+import com.example.paymentprocessor.data.response.ApiResponse;
+import com.example.paymentprocessor.exception.IdempotencyKeyConflictException;
+import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+// Applies Idempotency-Key to the endpoints that create transactions, so a client retrying a
+// deposit or withdrawal gets the first response back instead of a second debit or Paystack call
+@Component
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> PATHS = Set.of(
+            "/api/v1/payments/deposit/initialize",
+            "/api/v1/payments/withdrawal");
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService, ObjectMapper objectMapper) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Requests without the header behave as before
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !appliesTo(request.getMethod(), request.getRequestURI()) || request.getHeader(HEADER) == null;
+    }
+
+    public static boolean appliesTo(String method, String path) {
+        return "POST".equals(method) && PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String requestHash = requestHash(body);
+        HttpServletRequest cachedRequest = new CachedBodyRequest(request, body);
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+
+        Optional<IdempotencyService.StoredResponse> replay;
+        try {
+            replay = idempotencyService.execute(key, request.getRequestURI(), requestHash, () -> {
+                try {
+                    chain.doFilter(cachedRequest, cachingResponse);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ServletException e) {
+                    throw new IllegalStateException(e);
+                }
+                return new IdempotencyService.StoredResponse(requestHash, cachingResponse.getStatus(),
+                        cachingResponse.getContentAsByteArray());
+            });
+        } catch (IdempotencyKeyConflictException e) {
+            writeError(response, HttpStatus.CONFLICT, e.getMessage());
+            return;
+        } catch (PaymentException e) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+            return;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (replay.isEmpty()) {
+            cachingResponse.copyBodyToResponse();
+            return;
+        }
+        log.info("Replaying response for {} {}", request.getRequestURI(), HEADER);
+        response.setStatus(replay.get().status());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.getOutputStream().write(replay.get().body());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.<Void>builder()
+                .success(false)
+                .message(message)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    public static String requestHash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // The body has already been read for hashing, so the controller reads this copy
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
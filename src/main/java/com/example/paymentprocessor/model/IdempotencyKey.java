@@ -0,0 +1,50 @@
+package com.example.paymentprocessor.model;
+
+import com.example.paymentprocessor.constant.IdempotencyKeyStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_key_path",
+                columnNames = {"idempotency_key", "request_path"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String requestPath;
+
+    // SHA-256 of the request body; a key reused with a different body is rejected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private IdempotencyKeyStatus status;
+
+    @Column
+    private Integer responseStatus;
+
+    @Column
+    private byte[] responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
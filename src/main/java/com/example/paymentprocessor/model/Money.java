@@ -0,0 +1,89 @@
+package com.example.paymentprocessor.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+
+// An amount in kobo. Arithmetic is on the long and overflow throws instead of wrapping. Naira only
+// appear at the edges: the API and the database columns hold naira with two decimals (see
+// MoneyConverter), Paystack takes and returns kobo.
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private final long kobo;
+
+    private Money(long kobo) {
+        this.kobo = kobo;
+    }
+
+    public static Money ofKobo(long kobo) {
+        return kobo == 0 ? ZERO : new Money(kobo);
+    }
+
+    public static Money ofNaira(long naira) {
+        return ofKobo(Math.multiplyExact(naira, 100L));
+    }
+
+    @JsonCreator
+    public static Money ofNaira(BigDecimal naira) {
+        try {
+            return ofKobo(naira.movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not a naira amount with at most two decimal places: " + naira);
+        }
+    }
+
+    public long toKobo() {
+        return kobo;
+    }
+
+    @JsonValue
+    public BigDecimal toNaira() {
+        return BigDecimal.valueOf(kobo, 2);
+    }
+
+    public Money plus(Money other) {
+        return ofKobo(Math.addExact(kobo, other.kobo));
+    }
+
+    public Money minus(Money other) {
+        return ofKobo(Math.subtractExact(kobo, other.kobo));
+    }
+
+    public Money negate() {
+        return ofKobo(Math.negateExact(kobo));
+    }
+
+    public Money min(Money other) {
+        return kobo <= other.kobo ? this : other;
+    }
+
+    public int signum() {
+        return Long.signum(kobo);
+    }
+
+    public boolean isLessThan(Money other) {
+        return kobo < other.kobo;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(kobo, other.kobo);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && kobo == other.kobo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(kobo);
+    }
+
+    @Override
+    public String toString() {
+        return toNaira().toPlainString();
+    }
+}
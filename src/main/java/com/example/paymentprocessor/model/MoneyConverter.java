@@ -0,0 +1,21 @@
+package com.example.paymentprocessor.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// Money columns are numeric(38,2) naira, so native SQL summing them and existing data keep working
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toNaira();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal naira) {
+        return naira == null ? null : Money.ofNaira(naira);
+    }
+}
@@ -8,7 +8,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -19,7 +18,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -34,7 +34,7 @@ public class Transaction {
     private TransactionStatus status;
 
     @Column(nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 
     @Column(nullable = false)
     private String email;
@@ -44,6 +44,10 @@ public class Transaction {
     @Column
     private String reason;
 
+    // Set on withdrawals submitted together through the bulk transfer endpoint
+    @Column
+    private String batchReference;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,61 @@
+package com.example.paymentprocessor.model;
+
+import com.example.paymentprocessor.constant.TransferOutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "transfer_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Reference of the WITHDRAWAL transaction, also sent to Paystack as the transfer reference
+    @Column(nullable = false, unique = true)
+    private String reference;
+
+    // Set for items of a bulk withdrawal, whose first send goes through Paystack's bulk transfer API
+    @Column
+    private String batchReference;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TransferOutboxStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // When PENDING, the earliest next send; when PROCESSING, when the claim lapses
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
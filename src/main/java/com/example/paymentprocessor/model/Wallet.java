@@ -7,7 +7,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -18,14 +17,23 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Wallet {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallets_seq")
+    @SequenceGenerator(name = "wallets_seq", sequenceName = "wallets_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
     private String email;
 
+    // Balance as of the last compacted ledger entry; see WalletLedgerCompactor
     @Column(nullable = false)
-    private BigDecimal balance;
+    private Money balance;
+
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long snapshotEntryId;
+
+    // Number of ledger shards credits are spread over; greater than 1 only for hot wallets
+    @Column(nullable = false, columnDefinition = "integer default 1")
+    private Integer shardCount;
 
     @Column(nullable = false)
     private LocalDateTime createdAt;
@@ -38,7 +46,13 @@ public class Wallet {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
         if (balance == null) {
-            balance = BigDecimal.ZERO;
+            balance = Money.ZERO;
+        }
+        if (snapshotEntryId == null) {
+            snapshotEntryId = 0L;
+        }
+        if (shardCount == null) {
+            shardCount = 1;
         }
     }
 
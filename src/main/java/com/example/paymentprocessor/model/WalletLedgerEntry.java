@@ -0,0 +1,49 @@
+package com.example.paymentprocessor.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "wallet_ledger_entries",
+        indexes = @Index(name = "idx_wallet_ledger_entries_email_id", columnList = "email, id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletLedgerEntry {
+    // Not pooled: ids must follow insert order across nodes, since compaction and balances treat
+    // every entry above a snapshot's id as not yet compacted (see V6__ledger_entry_ids_in_order.sql)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_ledger_entries_seq")
+    @SequenceGenerator(name = "wallet_ledger_entries_seq", sequenceName = "wallet_ledger_entries_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private Integer shard;
+
+    // Positive for credits, negative for debits
+    @Column(nullable = false)
+    private Money amount;
+
+    @Column
+    private String reference;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (shard == null) {
+            shard = 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.paymentprocessor.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Snapshot balance of shard 1..n of a hot wallet; shard 0 lives on the wallet row and
+// all shards share the wallet's snapshotEntryId
+@Entity
+@Table(name = "wallet_shards", uniqueConstraints = @UniqueConstraint(columnNames = {"email", "shard"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Money balance;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.paymentprocessor.repository;
+
+import com.example.paymentprocessor.model.IdempotencyKey;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    // Empty when the key is held by another request or already has a response; an expired
+    // row, including an IN_PROGRESS one whose lease ran out, is taken over as if it were new
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_path, request_hash, status, " +
+            "created_at, expires_at) VALUES (:key, :path, :hash, 'IN_PROGRESS', now(), :expiresAt) " +
+            "ON CONFLICT (idempotency_key, request_path) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+            "status = 'IN_PROGRESS', response_status = NULL, response_body = NULL, " +
+            "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < now() RETURNING id", nativeQuery = true)
+    Optional<Long> claim(@Param("key") String key, @Param("path") String path, @Param("hash") String hash,
+                         @Param("expiresAt") LocalDateTime expiresAt);
+
+    // The lease a claim was made with identifies it: 0 when the key has since been taken over
+    @Modifying
+    @Transactional
+    @Query("update IdempotencyKey k set k.status = 'COMPLETED', k.responseStatus = :responseStatus, " +
+            "k.responseBody = :responseBody, k.expiresAt = :expiresAt " +
+            "where k.id = :id and k.status = 'IN_PROGRESS' and k.expiresAt = :lease")
+    int complete(@Param("id") Long id, @Param("lease") LocalDateTime lease,
+                 @Param("responseStatus") int responseStatus, @Param("responseBody") byte[] responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyKey k where k.id = :id and k.status = 'IN_PROGRESS' and k.expiresAt = :lease")
+    int release(@Param("id") Long id, @Param("lease") LocalDateTime lease);
+
+    Optional<IdempotencyKey> findByIdempotencyKeyAndRequestPath(String idempotencyKey, String requestPath);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyKey k where k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
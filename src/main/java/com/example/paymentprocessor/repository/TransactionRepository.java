@@ -1,14 +1,34 @@
 package com.example.paymentprocessor.repository;
 
 import com.example.paymentprocessor.constant.TransactionStatus;
+import com.example.paymentprocessor.constant.TransactionType;
 import com.example.paymentprocessor.model.Transaction;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionRepositoryCustom {
     Optional<Transaction> findByReference(String reference);
+    List<Transaction> findByReferenceIn(Collection<String> references);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Transaction> findForUpdateByReference(String reference);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Transaction> findForUpdateByReferenceInOrderByIdAsc(Collection<String> references);
+
     List<Transaction> findByEmail(String email);
+    List<Transaction> findByBatchReferenceOrderByIdAsc(String batchReference);
     List<Transaction> findByStatus(TransactionStatus status);
+
+    List<Transaction> findByStatusAndTypeAndCreatedAtBeforeAndIdGreaterThanOrderByIdAsc(
+            TransactionStatus status, TransactionType type, LocalDateTime createdBefore, Long afterId, Limit limit);
+
+    long countByStatusAndType(TransactionStatus status, TransactionType type);
 }
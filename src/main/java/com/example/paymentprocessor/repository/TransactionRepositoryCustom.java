@@ -0,0 +1,22 @@
+package com.example.paymentprocessor.repository;
+
+import com.example.paymentprocessor.data.request.TransactionFilter;
+import com.example.paymentprocessor.data.response.TransactionDTO;
+import com.example.paymentprocessor.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TransactionRepositoryCustom {
+    // Newest first, ordered by (createdAt, id) and starting after the given key when it is not null
+    List<TransactionDTO> findHistory(String email, TransactionFilter filter,
+                                     LocalDateTime afterCreatedAt, Long afterId, int limit);
+
+    // Persists new transactions in JDBC-batch-sized chunks, flushing and clearing the persistence
+    // context after each one; must run inside a transaction and detaches everything loaded in it
+    void insertAll(List<Transaction> transactions);
+
+    // Oldest first through a database cursor; must be consumed, and closed, inside a transaction
+    Stream<Transaction> streamForExport(String email, TransactionFilter filter);
+}
@@ -0,0 +1,113 @@
+package com.example.paymentprocessor.repository;
+
+import com.example.paymentprocessor.data.request.TransactionFilter;
+import com.example.paymentprocessor.data.response.TransactionDTO;
+import com.example.paymentprocessor.model.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Built with the criteria API so that filters which are not set are left out of the SQL entirely,
+// instead of "param is null or ..." conditions that keep Postgres from using the index
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    public void insertAll(List<Transaction> transactions) {
+        for (int i = 0; i < transactions.size(); i++) {
+            entityManager.persist(transactions.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public List<TransactionDTO> findHistory(String email, TransactionFilter filter,
+                                            LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionDTO> query = cb.createQuery(TransactionDTO.class);
+        Root<Transaction> transaction = query.from(Transaction.class);
+        Path<LocalDateTime> createdAt = transaction.get("createdAt");
+        Path<Long> id = transaction.get("id");
+
+        List<Predicate> predicates = filterPredicates(cb, transaction, email, filter);
+        if (afterCreatedAt != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(createdAt, afterCreatedAt),
+                    cb.and(cb.equal(createdAt, afterCreatedAt), cb.lessThan(id, afterId))));
+        }
+
+        query.select(cb.construct(TransactionDTO.class,
+                        id,
+                        transaction.get("reference"),
+                        transaction.get("type"),
+                        transaction.get("status"),
+                        transaction.get("amount"),
+                        transaction.get("email"),
+                        createdAt))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<Transaction> streamForExport(String email, TransactionFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> query = cb.createQuery(Transaction.class);
+        Root<Transaction> transaction = query.from(Transaction.class);
+
+        query.where(filterPredicates(cb, transaction, email, filter).toArray(Predicate[]::new))
+                .orderBy(cb.asc(transaction.get("createdAt")), cb.asc(transaction.get("id")));
+
+        // With a fetch size inside a transaction the Postgres driver reads through a server-side
+        // cursor instead of buffering the whole result
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Transaction> transaction,
+                                                    String email, TransactionFilter filter) {
+        Path<LocalDateTime> createdAt = transaction.get("createdAt");
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(transaction.get("email"), email));
+        if (filter.getType() != null) {
+            predicates.add(cb.equal(transaction.get("type"), filter.getType()));
+        }
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(transaction.get("status"), filter.getStatus()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(createdAt, filter.getTo()));
+        }
+        return predicates;
+    }
+}
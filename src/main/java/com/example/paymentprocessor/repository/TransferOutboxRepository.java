@@ -0,0 +1,45 @@
+package com.example.paymentprocessor.repository;
+
+import com.example.paymentprocessor.model.TransferOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransferOutboxRepository extends JpaRepository<TransferOutbox, Long> {
+
+    // Claims due single (bulk = false) or bulk withdrawal rows for one dispatcher; SKIP LOCKED keeps
+    // nodes from claiming the same rows, and a claim that is not settled within the lease (the node
+    // died) makes the row due again
+    @Transactional
+    @Query(value = "UPDATE transfer_outbox SET status = 'PROCESSING', attempts = attempts + 1, updated_at = now(), " +
+            "next_attempt_at = now() + make_interval(secs => :leaseSeconds) " +
+            "WHERE id IN (SELECT id FROM transfer_outbox WHERE status IN ('PENDING', 'PROCESSING') " +
+            "AND next_attempt_at <= now() AND (batch_reference IS NOT NULL) = :bulk " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *", nativeQuery = true)
+    List<TransferOutbox> claimDue(@Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds,
+                                  @Param("bulk") boolean bulk);
+
+    // Queues every PENDING withdrawal of a bulk batch in one statement; must run in the transaction
+    // that wrote them
+    @Modifying
+    @Query(value = "INSERT INTO transfer_outbox (reference, batch_reference, status, attempts, next_attempt_at, " +
+            "created_at, updated_at) SELECT reference, batch_reference, 'PENDING', 0, now(), now(), now() " +
+            "FROM transactions WHERE batch_reference = :batchReference AND status = 'PENDING'", nativeQuery = true)
+    int enqueueBatch(@Param("batchReference") String batchReference);
+
+    Optional<TransferOutbox> findByReference(String reference);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<TransferOutbox> findForUpdateByIdInOrderByIdAsc(Collection<Long> ids);
+}
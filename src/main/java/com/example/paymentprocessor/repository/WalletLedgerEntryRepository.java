@@ -0,0 +1,80 @@
+package com.example.paymentprocessor.repository;
+
+import com.example.paymentprocessor.model.WalletLedgerEntry;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WalletLedgerEntryRepository extends JpaRepository<WalletLedgerEntry, Long> {
+
+    String SNAPSHOT_ENTRY_ID_SQL = "COALESCE((SELECT w.snapshot_entry_id FROM wallets w WHERE w.email = :email), 0)";
+
+    // Snapshot balances of all shards plus every entry written after the snapshot
+    String BALANCE_SQL = "COALESCE((SELECT w.balance FROM wallets w WHERE w.email = :email), 0) " +
+            "+ COALESCE((SELECT SUM(s.balance) FROM wallet_shards s WHERE s.email = :email), 0) " +
+            "+ COALESCE((SELECT SUM(e.amount) FROM wallet_ledger_entries e WHERE e.email = :email " +
+            "AND e.id > " + SNAPSHOT_ENTRY_ID_SQL + "), 0)";
+
+    String SHARD_BALANCE_SQL = "(CASE WHEN :shard = 0 " +
+            "THEN COALESCE((SELECT w.balance FROM wallets w WHERE w.email = :email), 0) " +
+            "ELSE COALESCE((SELECT s.balance FROM wallet_shards s WHERE s.email = :email AND s.shard = :shard), 0) END) " +
+            "+ COALESCE((SELECT SUM(e.amount) FROM wallet_ledger_entries e WHERE e.email = :email " +
+            "AND e.shard = :shard AND e.id > " + SNAPSHOT_ENTRY_ID_SQL + "), 0)";
+
+    @Query(value = "SELECT " + BALANCE_SQL, nativeQuery = true)
+    BigDecimal currentBalance(@Param("email") String email);
+
+    @Query(value = "SELECT " + SHARD_BALANCE_SQL, nativeQuery = true)
+    BigDecimal shardBalance(@Param("email") String email, @Param("shard") int shard);
+
+    // Highest shard that may hold money: the configured count, or a shard left over from a larger count
+    @Query(value = "SELECT GREATEST(" +
+            "COALESCE((SELECT w.shard_count FROM wallets w WHERE w.email = :email), 1) - 1, " +
+            "COALESCE((SELECT MAX(s.shard) FROM wallet_shards s WHERE s.email = :email), 0), " +
+            "COALESCE((SELECT MAX(e.shard) FROM wallet_ledger_entries e WHERE e.email = :email " +
+            "AND e.id > " + SNAPSHOT_ENTRY_ID_SQL + "), 0))", nativeQuery = true)
+    int findHighestShard(@Param("email") String email);
+
+    // Taken shared by every ledger write before its entries get ids, and exclusively by the compactor.
+    // While the compactor holds it, each entry of the wallet has either committed or is still to get
+    // an id above every id the compactor can see. Shard locks use keys from 0, so -1 never collides.
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock_shared(hashtext(:email), -1)", nativeQuery = true)
+    Integer lockForWrite(@Param("email") String email);
+
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext(:email), -1)", nativeQuery = true)
+    Integer lockForCompaction(@Param("email") String email);
+
+    // Serializes debits on one shard; must run in its own statement before reading the shard balance
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext(:email), :shard)", nativeQuery = true)
+    Integer lockShard(@Param("email") String email, @Param("shard") int shard);
+
+    // Like lockShard, but returns false at once instead of waiting when another debit holds the lock
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext(:email), :shard)", nativeQuery = true)
+    boolean tryLockShard(@Param("email") String email, @Param("shard") int shard);
+
+    // Empty when the shard balance does not cover the amount
+    @Transactional
+    @Query(value = "WITH balance_before AS (SELECT " + SHARD_BALANCE_SQL + " AS balance), " +
+            "debit AS (INSERT INTO wallet_ledger_entries (email, shard, amount, reference, created_at) " +
+            "SELECT :email, :shard, -CAST(:amount AS numeric), CAST(:reference AS varchar), " +
+            "CAST(:createdAt AS timestamp) " +
+            "FROM balance_before WHERE balance_before.balance >= :amount RETURNING amount) " +
+            "SELECT balance_before.balance + debit.amount FROM balance_before, debit", nativeQuery = true)
+    Optional<BigDecimal> debitShard(@Param("email") String email, @Param("shard") int shard,
+                                    @Param("amount") BigDecimal amount, @Param("reference") String reference,
+                                    @Param("createdAt") LocalDateTime createdAt);
+
+    @Query("select max(e.id) from WalletLedgerEntry e")
+    Long findMaxId();
+
+    @Query("select distinct e.email from WalletLedgerEntry e where e.id > :afterId and e.id <= :upToId")
+    List<String> findEmailsWithEntriesBetween(@Param("afterId") long afterId, @Param("upToId") long upToId);
+}
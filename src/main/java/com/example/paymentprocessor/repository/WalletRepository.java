@@ -1,12 +1,49 @@
 package com.example.paymentprocessor.repository;
 
 import com.example.paymentprocessor.model.Wallet;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
     Optional<Wallet> findByEmail(String email);
-}
\ No newline at end of file
+
+    // Held by the compactor so concurrent compactions of one wallet cannot interleave
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Wallet> findForUpdateByEmail(String email);
+
+    List<Wallet> findByShardCountGreaterThan(int shardCount);
+
+    @Query("select coalesce(max(w.snapshotEntryId), 0) from Wallet w")
+    long findMaxSnapshotEntryId();
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO wallets (email, balance, snapshot_entry_id, created_at, updated_at) " +
+            "VALUES (:email, 0, 0, now(), now()) ON CONFLICT (email) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("email") String email);
+
+    @Modifying
+    @Transactional
+    @Query("update Wallet w set w.shardCount = :shardCount, w.updatedAt = current_timestamp where w.email = :email")
+    int updateShardCount(@Param("email") String email, @Param("shardCount") int shardCount);
+
+    // Rolls shard 0 entries in (snapshot_entry_id, upToId] into the wallet's snapshot balance
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE wallets w SET balance = w.balance + COALESCE((SELECT SUM(e.amount) " +
+            "FROM wallet_ledger_entries e WHERE e.email = w.email AND e.shard = 0 " +
+            "AND e.id > w.snapshot_entry_id AND e.id <= :upToId), 0), " +
+            "snapshot_entry_id = :upToId, updated_at = now() " +
+            "WHERE w.email = :email AND w.snapshot_entry_id < :upToId", nativeQuery = true)
+    int compactSnapshot(@Param("email") String email, @Param("upToId") long upToId);
+}
@@ -0,0 +1,27 @@
+package com.example.paymentprocessor.repository;
+
+import com.example.paymentprocessor.model.WalletShard;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WalletShardRepository extends JpaRepository<WalletShard, Long> {
+
+    // Rolls entries of shards 1..n in (snapshot_entry_id, upToId] into their shard snapshots.
+    // Must run before WalletRepository.compactSnapshot moves the wallet's snapshot_entry_id.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO wallet_shards (email, shard, balance, created_at, updated_at) " +
+            "SELECT e.email, e.shard, SUM(e.amount), now(), now() FROM wallet_ledger_entries e " +
+            "WHERE e.email = :email AND e.shard > 0 AND e.id <= :upToId " +
+            "AND e.id > (SELECT w.snapshot_entry_id FROM wallets w WHERE w.email = :email) " +
+            "GROUP BY e.email, e.shard " +
+            "ON CONFLICT (email, shard) DO UPDATE " +
+            "SET balance = wallet_shards.balance + EXCLUDED.balance, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int compactShards(@Param("email") String email, @Param("upToId") long upToId);
+}
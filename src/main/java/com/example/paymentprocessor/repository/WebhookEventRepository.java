@@ -0,0 +1,43 @@
+package com.example.paymentprocessor.repository;
+
+import com.example.paymentprocessor.constant.WebhookEventStatus;
+import com.example.paymentprocessor.model.WebhookEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    // Empty when an event with the same id was already stored
+    @Transactional
+    @Query(value = "INSERT INTO webhook_events (event_id, event, payload, status, attempts, created_at, updated_at) " +
+            "VALUES (:eventId, :event, :payload, 'RECEIVED', 0, now(), now()) " +
+            "ON CONFLICT (event_id) DO NOTHING RETURNING id", nativeQuery = true)
+    Optional<Long> insertIfAbsent(@Param("eventId") String eventId, @Param("event") String event,
+                                  @Param("payload") String payload);
+
+    // Claims an event for processing; also reclaims events whose worker died mid-processing
+    @Modifying
+    @Transactional
+    @Query("update WebhookEvent e set e.status = 'PROCESSING', e.attempts = e.attempts + 1, " +
+            "e.updatedAt = current_timestamp where e.id = :id and (e.status = 'RECEIVED' " +
+            "or (e.status = 'PROCESSING' and e.updatedAt < :staleBefore))")
+    int claim(@Param("id") Long id, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional
+    @Query("update WebhookEvent e set e.status = :status, e.updatedAt = current_timestamp where e.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") WebhookEventStatus status);
+
+    @Query("select e.id from WebhookEvent e where (e.status = 'RECEIVED' and e.createdAt < :receivedBefore) " +
+            "or (e.status = 'PROCESSING' and e.updatedAt < :receivedBefore) order by e.id")
+    List<Long> findIdsToRetry(@Param("receivedBefore") LocalDateTime receivedBefore);
+}
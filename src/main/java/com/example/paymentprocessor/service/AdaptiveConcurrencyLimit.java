@@ -0,0 +1,90 @@
+package com.example.paymentprocessor.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-flight limit that follows Paystack's latency. The long-term average round trip is the
+// baseline: while recent calls take more than rttTolerance times that, the limit shrinks in
+// proportion, otherwise it grows by about its square root per call. A failed call cuts it by 10%,
+// since a timeout or a 5xx carries no useful latency.
+class AdaptiveConcurrencyLimit {
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    // Guarded by this
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    // Returns the number of calls in flight including this one, or 0 if the limit is reached
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    synchronized void onSuccess(long rttNanos, int inFlightAtStart) {
+        samples++;
+        shortRtt = ema(shortRtt, rttNanos, SHORT_WINDOW);
+        longRtt = ema(longRtt, rttNanos, LONG_WINDOW);
+        // After a slow spell the baseline would otherwise take hundreds of calls to come back down
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        // Too few calls in flight to tell whether a higher limit would hold up
+        if (gradient == 1.0 && inFlightAtStart < current / 2) {
+            return;
+        }
+        double target = current * gradient + Math.sqrt(current);
+        limit = clamp(current * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    synchronized void onFailure() {
+        limit = clamp(limit * BACKOFF_RATIO);
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    // A plain running average until the window has filled, so the first calls set the baseline
+    private double ema(double average, long sample, int window) {
+        double weight = samples < window ? 1.0 / samples : 2.0 / (window + 1);
+        return average + (sample - average) * weight;
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.data.paystack.PaystackBank;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackRecipient;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.paystack.PaystackTransfer;
+import com.example.paymentprocessor.data.request.PaymentRequest;
+import com.example.paymentprocessor.data.request.TransferRecipientRequest;
+import com.example.paymentprocessor.data.request.TransferRequest;
+import com.example.paymentprocessor.data.response.ApiResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking counterpart of PayStackService. Futures complete with the same responses, or
+// exceptionally with the same PaymentException the blocking call would throw.
+public interface AsyncPayStackService {
+    CompletableFuture<ApiResponse<PaystackInitialization>> initializeDeposit(PaymentRequest request);
+    CompletableFuture<ApiResponse<PaystackTransaction>> verifyTransaction(String reference);
+    CompletableFuture<ApiResponse<PaystackRecipient>> createTransferRecipient(TransferRecipientRequest request);
+    CompletableFuture<ApiResponse<PaystackTransfer>> initiateTransfer(TransferRequest request);
+    CompletableFuture<ApiResponse<List<PaystackTransfer>>> initiateBulkTransfer(List<TransferRequest> requests);
+    CompletableFuture<ApiResponse<PaystackTransfer>> verifyTransfer(String reference);
+    CompletableFuture<ApiResponse<List<PaystackBank>>> listBanks();
+}
@@ -0,0 +1,344 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.constant.PaystackEndpoint;
+import com.example.paymentprocessor.data.paystack.PaystackBank;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackRecipient;
+import com.example.paymentprocessor.data.paystack.PaystackResponse;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.paystack.PaystackTransfer;
+import com.example.paymentprocessor.data.request.PaymentRequest;
+import com.example.paymentprocessor.data.request.TransferRecipientRequest;
+import com.example.paymentprocessor.data.request.TransferRequest;
+import com.example.paymentprocessor.data.response.ApiResponse;
+import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.exception.PaystackResponseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Calls go out on the JDK HttpClient, which waits on sockets with a selector rather than a thread
+// per call, so calls in flight hold no threads. It gets the blocking client's connect and call
+// timeouts; at most paystack.http.max-async-requests calls are in flight and the rest wait in a
+// queue, again without a thread. PaystackGuard's limits and circuit breakers apply as they do to
+// blocking calls.
+@Slf4j
+public class AsyncPayStackServiceImpl implements AsyncPayStackService {
+
+    private static final TypeReference<PaystackResponse<PaystackInitialization>> INITIALIZATION =
+            new TypeReference<>() {};
+    private static final TypeReference<PaystackResponse<PaystackTransaction>> TRANSACTION =
+            new TypeReference<>() {};
+    private static final TypeReference<PaystackResponse<PaystackTransfer>> TRANSFER =
+            new TypeReference<>() {};
+    private static final TypeReference<PaystackResponse<List<PaystackTransfer>>> TRANSFERS =
+            new TypeReference<>() {};
+    private static final TypeReference<PaystackResponse<PaystackRecipient>> RECIPIENT =
+            new TypeReference<>() {};
+    private static final TypeReference<PaystackResponse<List<PaystackBank>>> BANKS =
+            new TypeReference<>() {};
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final PaystackGuard guard;
+    private final String authorization;
+    private final Duration callTimeout;
+    private final String BASE_URL = "https://api.paystack.co";
+
+    private final Semaphore inFlight;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public AsyncPayStackServiceImpl(PaystackProperties properties, HttpClient httpClient,
+                                    ObjectMapper objectMapper, PaystackGuard guard) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.guard = guard;
+        this.authorization = "Bearer " + properties.getApiKey();
+        this.callTimeout = properties.getHttp().getCallTimeout();
+        this.inFlight = new Semaphore(properties.getHttp().getMaxAsyncRequests());
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackInitialization>> initializeDeposit(PaymentRequest request) {
+        // Paystack takes amounts in kobo
+        Map<String, Object> body = new HashMap<>();
+        body.put("email", request.getEmail());
+        body.put("amount", request.getAmount().toKobo());
+        body.put("reference", request.getReference());
+        body.put("callback_url", request.getCallback_url());
+
+        return send(PaystackEndpoint.INITIALIZE, post("/transaction/initialize", body), INITIALIZATION, "Payment initialization failed")
+                .thenApply(reply -> {
+                    if (reply.code() == 200 && reply.body() != null) {
+                        return success("Payment initialization successful", reply.body().data());
+                    }
+                    throw new PaymentException(reply.failure("Payment initialization failed"));
+                });
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackTransaction>> verifyTransaction(String reference) {
+        return send(PaystackEndpoint.VERIFY, get("/transaction/verify/" + reference), TRANSACTION, "Transaction verification failed")
+                .thenApply(reply -> {
+                    if (reply.code() == 404) {
+                        throw new PaymentException("Transaction not found or invalid reference");
+                    }
+                    if (reply.code() != 200 || reply.body() == null) {
+                        throw new PaymentException(reply.code() == 200 ? "Unable to verify transaction" :
+                                reply.failure("Transaction verification failed"));
+                    }
+                    PaystackResponse<PaystackTransaction> responseBody = reply.body();
+                    if (responseBody.status() && responseBody.data() != null) {
+                        return success("Transaction verification successful", responseBody.data());
+                    }
+                    throw new PaymentException(responseBody.message() != null ?
+                            responseBody.message() : "Unable to verify transaction");
+                });
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackRecipient>> createTransferRecipient(TransferRecipientRequest request) {
+        return send(PaystackEndpoint.CREATE_RECIPIENT, post("/transferrecipient", request), RECIPIENT, "Failed to create transfer recipient")
+                .thenApply(reply -> {
+                    if ((reply.code() == 200 || reply.code() == 201) && reply.body() != null) {
+                        PaystackResponse<PaystackRecipient> responseBody = reply.body();
+                        if (responseBody.status()) {
+                            return success(responseBody.message(), responseBody.data());
+                        }
+                        log.error("Paystack error response: {}", responseBody);
+                        throw new PaymentException(responseBody.message() != null ?
+                                responseBody.message() : "Failed to create transfer recipient");
+                    }
+                    log.error("HTTP error when creating transfer recipient. Status: {}, Response: {}",
+                            reply.code(), reply.error());
+                    throw new PaymentException("Failed to create transfer recipient: " + reply.error());
+                });
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackTransfer>> initiateTransfer(TransferRequest request) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("source", "balance");
+        body.put("amount", request.getAmount().toKobo());
+        body.put("recipient", request.getRecipient());
+        body.put("reason", request.getReason());
+        body.put("reference", request.getReference());
+
+        return send(PaystackEndpoint.TRANSFER, post("/transfer", body), TRANSFER, "Transfer initiation failed")
+                .thenApply(reply -> {
+                    if (reply.code() == 200 && reply.body() != null) {
+                        return success("Transfer initiated successfully", reply.body().data());
+                    }
+                    throw transferFailure(reply, "Transfer initiation failed");
+                });
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<List<PaystackTransfer>>> initiateBulkTransfer(List<TransferRequest> requests) {
+        List<Map<String, Object>> transfers = new ArrayList<>();
+        for (TransferRequest request : requests) {
+            Map<String, Object> transfer = new HashMap<>();
+            transfer.put("amount", request.getAmount().toKobo());
+            transfer.put("recipient", request.getRecipient());
+            transfer.put("reason", request.getReason());
+            transfer.put("reference", request.getReference());
+            transfers.add(transfer);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("currency", "NGN");
+        body.put("source", "balance");
+        body.put("transfers", transfers);
+
+        return send(PaystackEndpoint.BULK_TRANSFER, post("/transfer/bulk", body), TRANSFERS, "Bulk transfer initiation failed")
+                .thenApply(reply -> {
+                    if (reply.code() == 200 && reply.body() != null) {
+                        return success("Bulk transfer initiated successfully", reply.body().data());
+                    }
+                    throw transferFailure(reply, "Bulk transfer initiation failed");
+                });
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackTransfer>> verifyTransfer(String reference) {
+        return send(PaystackEndpoint.VERIFY_TRANSFER, get("/transfer/verify/" + reference), TRANSFER, "Transfer verification failed")
+                .thenApply(reply -> {
+                    if (reply.code() == 200 && reply.body() != null && reply.body().data() != null) {
+                        return success("Transfer verification successful", reply.body().data());
+                    }
+                    throw transferFailure(reply, "Transfer verification failed");
+                });
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<List<PaystackBank>>> listBanks() {
+        return send(PaystackEndpoint.LIST_BANKS, get("/bank"), BANKS, "Failed to retrieve banks list")
+                .thenApply(reply -> {
+                    if (reply.code() == 200 && reply.body() != null) {
+                        return success("Banks retrieved successfully", reply.body().data());
+                    }
+                    throw new PaymentException(reply.failure("Failed to retrieve banks list"));
+                });
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                .header("Authorization", authorization)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new PaymentException("Unable to serialize Paystack request: " + e.getMessage());
+        }
+    }
+
+    // Completes with the status and parsed body, or the raw body for error statuses; only transport
+    // failures, timeouts and calls the guard rejects complete exceptionally. Cancelling the returned
+    // future cancels the call.
+    private <T> CompletableFuture<Reply<T>> send(PaystackEndpoint endpoint, HttpRequest request,
+                                                 TypeReference<PaystackResponse<T>> type, String failureMessage) {
+        PaystackGuard.Permit permit;
+        try {
+            permit = guard.acquire(endpoint);
+        } catch (PaymentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Reply<T>> future = new CompletableFuture<>();
+        waiting.add(() -> start(request, type, failureMessage, permit, future));
+        startWaiting();
+        return future;
+    }
+
+    // A call queued behind a full in-flight limit is started by whichever call frees a slot; it is
+    // queued before this tries for a slot, so a slot freed meanwhile always finds it
+    private void startWaiting() {
+        while (!waiting.isEmpty() && inFlight.tryAcquire()) {
+            Runnable call = waiting.poll();
+            if (call == null) {
+                inFlight.release();
+                return;
+            }
+            call.run();
+        }
+    }
+
+    private void finished() {
+        inFlight.release();
+        startWaiting();
+    }
+
+    // Holds an in-flight slot until the exchange completes. The call timeout covers the whole
+    // exchange, body included, and aborts it when it runs out.
+    private <T> void start(HttpRequest request, TypeReference<PaystackResponse<T>> type, String failureMessage,
+                           PaystackGuard.Permit permit, CompletableFuture<Reply<T>> future) {
+        if (future.isDone()) {
+            // Cancelled while it waited for a slot
+            permit.cancel();
+            finished();
+            return;
+        }
+        CompletableFuture<HttpResponse<byte[]>> exchange;
+        try {
+            exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            permit.complete(true);
+            finished();
+            log.error(failureMessage, e);
+            future.completeExceptionally(new PaymentException(failureMessage + ": " + e.getMessage()));
+            return;
+        }
+        future.whenComplete((reply, failure) -> {
+            if (future.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        exchange.copy().orTimeout(callTimeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((response, failure) -> {
+            finished();
+            if (future.isCancelled()) {
+                permit.cancel();
+                return;
+            }
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null ?
+                        failure.getCause() : failure;
+                String error;
+                if (cause instanceof TimeoutException) {
+                    exchange.cancel(true);
+                    error = "timed out after " + callTimeout;
+                } else {
+                    // ConnectException and friends often carry no message
+                    error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                }
+                permit.complete(true);
+                log.error(failureMessage, cause);
+                future.completeExceptionally(new PaymentException(failureMessage + ": " + error));
+                return;
+            }
+            permit.complete(PaystackGuard.isFailure(response.statusCode()));
+            try {
+                byte[] body = response.body();
+                if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                    future.complete(new Reply<>(response.statusCode(), null,
+                            body == null ? "" : new String(body, StandardCharsets.UTF_8)));
+                } else {
+                    future.complete(new Reply<>(response.statusCode(),
+                            body == null || body.length == 0 ? null : objectMapper.readValue(body, type), null));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error(failureMessage, e);
+                future.completeExceptionally(new PaymentException(failureMessage + ": " + e.getMessage()));
+            }
+        });
+    }
+
+    // Error statuses keep their HTTP status, as in PayStackServiceImpl, so callers can tell a refusal
+    // from a failure that may have left a transfer behind
+    private static PaymentException transferFailure(Reply<?> reply, String message) {
+        return reply.error() != null ? new PaystackResponseException(reply.failure(message), reply.code()) :
+                new PaymentException(reply.failure(message));
+    }
+
+    private static <T> ApiResponse<T> success(String message, T data) {
+        return ApiResponse.<T>builder()
+                .success(true)
+                .message(message)
+                .data(data)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private record Reply<T>(int code, PaystackResponse<T> body, String error) {
+        String failure(String message) {
+            return error == null ? message : message + ": " + code + " " + error;
+        }
+    }
+}
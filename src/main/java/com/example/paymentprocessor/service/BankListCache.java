@@ -0,0 +1,159 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.data.paystack.PaystackBank;
+import com.example.paymentprocessor.data.response.ApiResponse;
+import com.example.paymentprocessor.exception.PaymentException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Holds the Paystack bank list, which changes rarely, as ready-to-send JSON. A scheduled check
+// refreshes it ahead of expiry; if Paystack cannot be reached the stale copy keeps being served,
+// and requests stop trying Paystack themselves until the next refresh check is due.
+@Component
+@Slf4j
+public class BankListCache {
+    private final PayStackServiceImpl paystackService;
+    private final ObjectMapper objectMapper;
+    private final PaystackProperties.Banks properties;
+
+    private volatile Snapshot snapshot;
+    // Not synchronized: a virtual thread blocked on Paystack inside a monitor would pin its carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter staleCounter;
+    private final Counter refreshedCounter;
+    private final Counter refreshFailedCounter;
+
+    public BankListCache(PayStackServiceImpl paystackService, ObjectMapper objectMapper,
+                         PaystackProperties properties, MeterRegistry meterRegistry) {
+        this.paystackService = paystackService;
+        this.objectMapper = objectMapper;
+        this.properties = properties.getBanks();
+
+        this.hitCounter = Counter.builder("paystack.banks.cache").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("paystack.banks.cache").tag("result", "miss").register(meterRegistry);
+        this.staleCounter = Counter.builder("paystack.banks.cache").tag("result", "stale").register(meterRegistry);
+        this.refreshedCounter = Counter.builder("paystack.banks.refresh").tag("outcome", "success")
+                .register(meterRegistry);
+        this.refreshFailedCounter = Counter.builder("paystack.banks.refresh").tag("outcome", "error")
+                .register(meterRegistry);
+        Gauge.builder("paystack.banks.age", this, cache -> cache.ageMillis() / 1000.0)
+                .description("Seconds since the cached bank list was fetched")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // Serialized ApiResponse, as returned by Paystack at the last successful fetch
+    public byte[] getSerializedResponse() {
+        Snapshot current = snapshot;
+        if (current != null && current.age().compareTo(properties.getTtl()) < 0) {
+            hitCounter.increment();
+            return current.json();
+        }
+        if (current != null && current.backingOff()) {
+            staleCounter.increment();
+            return current.json();
+        }
+        missCounter.increment();
+        return load(current).json();
+    }
+
+    // Only one caller fetches on a miss; the others find its snapshot once they get the lock
+    private Snapshot load(Snapshot seen) {
+        loadLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current != seen) {
+                return current;
+            }
+            try {
+                return refresh();
+            } catch (RuntimeException e) {
+                if (current == null) {
+                    throw e;
+                }
+                log.warn("Serving bank list fetched {} ago: {}", current.age(), e.getMessage());
+                return snapshot;
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "#{@paystackProperties.banks.refreshCheckInterval.toMillis()}")
+    public void refreshAhead() {
+        Snapshot current = snapshot;
+        if (current == null || current.age().compareTo(properties.getRefreshAfter()) < 0) {
+            return;
+        }
+        // A request already fetching past the TTL covers this round
+        if (!loadLock.tryLock()) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Background bank list refresh failed: {}", e.getMessage());
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // Callers hold loadLock
+
+    private Snapshot refresh() {
+        try {
+            ApiResponse<List<PaystackBank>> response = paystackService.listBanks();
+            Snapshot fresh = new Snapshot(objectMapper.writeValueAsBytes(response), System.nanoTime(), 0);
+            snapshot = fresh;
+            refreshedCounter.increment();
+            log.info("Cached {} banks", response.getData() == null ? 0 : response.getData().size());
+            return fresh;
+        } catch (JsonProcessingException e) {
+            failed();
+            throw new PaymentException("Failed to serialize banks list: " + e.getMessage());
+        } catch (RuntimeException e) {
+            failed();
+            throw e;
+        }
+    }
+
+    // Past the TTL, requests serve the stale copy without queueing on Paystack until the next check
+    private void failed() {
+        refreshFailedCounter.increment();
+        Snapshot current = snapshot;
+        if (current != null) {
+            snapshot = new Snapshot(current.json(), current.fetchedAt(),
+                    System.nanoTime() + properties.getRefreshCheckInterval().toNanos());
+        }
+    }
+
+    private long ageMillis() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.age().toMillis();
+    }
+
+    // retryAt is zero until a refresh fails, then the nanoTime before which requests skip Paystack
+    private record Snapshot(byte[] json, long fetchedAt, long retryAt) {
+        Duration age() {
+            return Duration.ofNanos(System.nanoTime() - fetchedAt);
+        }
+
+        boolean backingOff() {
+            return retryAt != 0 && System.nanoTime() - retryAt < 0;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.response.ApiResponse;
+import com.example.paymentprocessor.data.response.VerificationResult;
+import com.example.paymentprocessor.exception.PaymentException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+// Verifies many references concurrently and applies the results to the database in one pass.
+// Calls go through AsyncPayStackService, so the calls in flight do not each hold a thread.
+@Service
+@Slf4j
+public class BatchVerificationService {
+    private final AsyncPayStackService paystackService;
+    private final PaymentService paymentService;
+    private final PaystackProperties.BatchVerify properties;
+    private final Semaphore inFlight;
+
+    public BatchVerificationService(AsyncPayStackService paystackService, PaymentService paymentService,
+                                    PaystackProperties properties) {
+        this.paystackService = paystackService;
+        this.paymentService = paymentService;
+        this.properties = properties.getBatchVerify();
+        this.inFlight = new Semaphore(this.properties.getMaxConcurrency());
+    }
+
+    public List<VerificationResult> verifyAll(List<String> references) {
+        LinkedHashSet<String> uniqueReferences = new LinkedHashSet<>(references);
+        if (uniqueReferences.size() > properties.getMaxReferences()) {
+            throw new PaymentException("At most " + properties.getMaxReferences() + " references can be verified at once");
+        }
+
+        Map<String, CompletableFuture<VerificationResult>> futures = new LinkedHashMap<>();
+        try {
+            for (String reference : uniqueReferences) {
+                inFlight.acquire();
+                futures.put(reference, verify(reference).whenComplete((result, failure) -> inFlight.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.values().forEach(future -> future.cancel(true));
+            throw new PaymentException("Batch verification interrupted");
+        }
+        List<VerificationResult> results = futures.values().stream().map(CompletableFuture::join).toList();
+
+        Map<String, PaystackTransaction> verified = new LinkedHashMap<>();
+        results.stream()
+                .filter(result -> result.isSuccess() && result.getData() != null)
+                .forEach(result -> verified.put(result.getReference(), result.getData()));
+        if (!verified.isEmpty()) {
+            paymentService.applyVerifications(verified);
+        }
+        log.info("Batch verified {} of {} references", verified.size(), results.size());
+        return results;
+    }
+
+    // Failures are reported per reference and, unlike single verification, leave the stored status untouched
+    private CompletableFuture<VerificationResult> verify(String reference) {
+        CompletableFuture<ApiResponse<PaystackTransaction>> call;
+        try {
+            call = paystackService.verifyTransaction(reference);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.handle((response, failure) -> {
+            if (failure == null) {
+                return VerificationResult.builder()
+                        .reference(reference)
+                        .success(response.isSuccess())
+                        .message(response.getMessage())
+                        .data(response.getData())
+                        .build();
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ?
+                    failure.getCause() : failure;
+            log.warn("Verification of {} failed: {}", reference, cause.getMessage());
+            return VerificationResult.builder()
+                    .reference(reference)
+                    .success(false)
+                    .message(cause.getMessage())
+                    .build();
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.constant.TransactionStatus;
+import com.example.paymentprocessor.constant.TransactionType;
+import com.example.paymentprocessor.data.request.TransferRequest;
+import com.example.paymentprocessor.data.response.ApiResponse;
+import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.model.Money;
+import com.example.paymentprocessor.model.Transaction;
+import com.example.paymentprocessor.repository.TransactionRepository;
+import com.example.paymentprocessor.repository.TransferOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Pays out many withdrawals through Paystack's bulk transfer API. Wallets are debited, and the
+// PENDING rows and their outbox rows written, in one transaction; TransferOutboxDispatcher then
+// sends them to Paystack in bulk chunks and settles or refunds each item like a single withdrawal.
+@Service
+@Slf4j
+public class BulkWithdrawalService {
+    private final TransactionRepository transactionRepository;
+    private final TransferOutboxRepository transferOutboxRepository;
+    private final TransferOutboxDispatcher transferOutboxDispatcher;
+    private final WalletService walletService;
+    private final TransactionTemplate transactionTemplate;
+    private final PaystackProperties.BulkTransfer properties;
+
+    public BulkWithdrawalService(TransactionRepository transactionRepository,
+                                 TransferOutboxRepository transferOutboxRepository,
+                                 TransferOutboxDispatcher transferOutboxDispatcher, WalletService walletService,
+                                 TransactionTemplate transactionTemplate, PaystackProperties properties) {
+        this.transactionRepository = transactionRepository;
+        this.transferOutboxRepository = transferOutboxRepository;
+        this.transferOutboxDispatcher = transferOutboxDispatcher;
+        this.walletService = walletService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties.getBulkTransfer();
+    }
+
+    public ApiResponse<Map<String, Object>> initiateBulkWithdrawal(List<TransferRequest> requests) {
+        if (requests.size() > properties.getMaxItems()) {
+            throw new PaymentException("At most " + properties.getMaxItems() + " withdrawals can be submitted at once");
+        }
+
+        String batchReference = "BULK_" + UUID.randomUUID();
+        // Paystack only accepts lowercase alphanumeric, '-' and '_' in transfer references
+        List<TransferRequest> items = requests.stream()
+                .map(request -> TransferRequest.builder()
+                        .amount(request.getAmount())
+                        .recipient(request.getRecipient())
+                        .reason(request.getReason())
+                        .reference(request.getReference() != null ?
+                                request.getReference() : "wit_" + UUID.randomUUID())
+                        .email(request.getEmail())
+                        .build())
+                .toList();
+
+        List<TransferRequest> accepted = transactionTemplate.execute(status -> debitAndRecord(batchReference, items));
+
+        if (!accepted.isEmpty()) {
+            transferOutboxDispatcher.wakeUp();
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("batchReference", batchReference);
+        data.put("accepted", accepted.size());
+        data.put("rejected", items.size() - accepted.size());
+        log.info("Bulk withdrawal {} accepted {} of {} items", batchReference, accepted.size(), items.size());
+        return ApiResponse.<Map<String, Object>>builder()
+                .success(true)
+                .message("Bulk withdrawal accepted")
+                .data(data)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    // One debit per wallet for the sum of its items, taken in email order so concurrent batches
+    // lock wallets in the same order. A wallet that cannot cover its items, or whose shards are
+    // busy with other debits, has all of them recorded as FAILED without touching the balance.
+    private List<TransferRequest> debitAndRecord(String batchReference, List<TransferRequest> items) {
+        Map<String, List<TransferRequest>> itemsByEmail = items.stream()
+                .collect(Collectors.groupingBy(TransferRequest::getEmail, TreeMap::new, Collectors.toList()));
+
+        List<TransferRequest> accepted = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for (Map.Entry<String, List<TransferRequest>> entry : itemsByEmail.entrySet()) {
+            Money total = entry.getValue().stream()
+                    .map(TransferRequest::getAmount)
+                    .reduce(Money.ZERO, Money::plus);
+            WalletService.Debit debit = walletService.tryDebitWallet(entry.getKey(), total, batchReference);
+            boolean debited = debit.balance().isPresent();
+            if (debited) {
+                accepted.addAll(entry.getValue());
+            } else {
+                log.warn("Bulk withdrawal {} rejected {} items for {}: {}", batchReference, entry.getValue().size(),
+                        entry.getKey(), debit.busy() ? "wallet busy with other debits" : "insufficient funds");
+            }
+            for (TransferRequest item : entry.getValue()) {
+                transactions.add(Transaction.builder()
+                        .reference(item.getReference())
+                        .type(TransactionType.WITHDRAWAL)
+                        .status(debited ? TransactionStatus.PENDING : TransactionStatus.FAILED)
+                        .amount(item.getAmount())
+                        .email(item.getEmail())
+                        .recipientCode(item.getRecipient())
+                        .reason(item.getReason())
+                        .batchReference(batchReference)
+                        .build());
+            }
+        }
+        transactionRepository.insertAll(transactions);
+        if (!accepted.isEmpty()) {
+            transferOutboxRepository.enqueueBatch(batchReference);
+        }
+        return accepted;
+    }
+}
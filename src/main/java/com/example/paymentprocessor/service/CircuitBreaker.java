@@ -0,0 +1,133 @@
+package com.example.paymentprocessor.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+// Tracks the outcomes of the last windowSize calls to one endpoint. Once at least minimumCalls have
+// been seen and failureRatePercent of them failed, it opens and calls are rejected for openDuration.
+// Then up to halfOpenCalls trial calls go through: a failure opens it again, all succeeding closes it.
+@Slf4j
+class CircuitBreaker {
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    enum Admission {
+        CALL,
+        TRIAL,
+        REJECTED
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    // Guarded by this
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRatePercent,
+                   Duration openDuration, int halfOpenCalls) {
+        this.name = name;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRatePercent = failureRatePercent;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    synchronized Admission tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return Admission.REJECTED;
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenCalls) {
+                return Admission.REJECTED;
+            }
+            trialsStarted++;
+            return Admission.TRIAL;
+        }
+        return Admission.CALL;
+    }
+
+    // Calls admitted before the circuit opened are not counted once it has
+    synchronized void onResult(Admission admission, boolean failed) {
+        if (admission == Admission.TRIAL && state == State.HALF_OPEN) {
+            if (failed) {
+                open();
+            } else if (++trialsSucceeded >= halfOpenCalls) {
+                close();
+            }
+        } else if (admission == Admission.CALL && state == State.CLOSED) {
+            record(failed);
+            if (recorded >= minimumCalls && failures * 100 >= failureRatePercent * recorded) {
+                open();
+            }
+        }
+    }
+
+    // The call was cancelled before it finished; a trial slot is handed back for another caller
+    synchronized void onCancel(Admission admission) {
+        if (admission == Admission.TRIAL && state == State.HALF_OPEN) {
+            trialsStarted--;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized Duration remainingOpen() {
+        long remaining = openNanos - (System.nanoTime() - openedAt);
+        return state == State.OPEN && remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        if (state == State.HALF_OPEN) {
+            log.warn("Paystack {} circuit reopened after a failed trial call", name);
+        } else {
+            log.warn("Paystack {} circuit opened after {} failures in {} calls", name, failures, recorded);
+        }
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        log.info("Paystack {} circuit closed", name);
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.data.response.TransactionDTO;
+import com.example.paymentprocessor.data.response.TransactionPage;
+import com.example.paymentprocessor.exception.PaymentException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+// Keyset cursors for transaction history pages: the (created_at, id) of the last row returned,
+// so the next page starts strictly after it. Shared by every history endpoint so cursors from one
+// deployment profile are accepted by the other.
+public final class HistoryCursor {
+
+    private HistoryCursor() {
+    }
+
+    public record Position(LocalDateTime createdAt, long id) {
+    }
+
+    // Null for the first page
+    public static Position decode(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return new Position(LocalDateTime.parse(key[0]), Long.parseLong(key[1]));
+        } catch (RuntimeException e) {
+            throw new PaymentException("Invalid cursor");
+        }
+    }
+
+    // Rows are fetched with one extra row, which tells whether there is a next page
+    public static TransactionPage page(List<TransactionDTO> rows, int limit) {
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            TransactionDTO last = rows.get(rows.size() - 1);
+            nextCursor = encode(last.getCreatedAt() + "|" + last.getId());
+        }
+        return TransactionPage.builder()
+            .transactions(rows)
+            .nextCursor(nextCursor)
+            .build();
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
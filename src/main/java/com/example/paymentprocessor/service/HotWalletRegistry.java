@@ -0,0 +1,45 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.model.Wallet;
+import com.example.paymentprocessor.repository.WalletRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// In-memory shard counts of hot wallets so credits can pick a shard without a wallet lookup.
+// A stale count only changes which shard a credit lands in; debits always read the count from the database.
+@Component
+@Slf4j
+public class HotWalletRegistry {
+    private final WalletRepository walletRepository;
+    private volatile Map<String, Integer> shardCounts = Map.of();
+
+    public HotWalletRegistry(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    @Scheduled(fixedDelayString = "#{@walletProperties.sharding.refreshInterval.toMillis()}")
+    public void refresh() {
+        shardCounts = walletRepository.findByShardCountGreaterThan(1).stream()
+                .collect(Collectors.toUnmodifiableMap(Wallet::getEmail, Wallet::getShardCount));
+        log.debug("Loaded {} hot wallets", shardCounts.size());
+    }
+
+    public int shardCount(String email) {
+        return shardCounts.getOrDefault(email, 1);
+    }
+
+    public void update(String email, int shardCount) {
+        Map<String, Integer> updated = new HashMap<>(shardCounts);
+        if (shardCount > 1) {
+            updated.put(email, shardCount);
+        } else {
+            updated.remove(email);
+        }
+        shardCounts = Map.copyOf(updated);
+    }
+}
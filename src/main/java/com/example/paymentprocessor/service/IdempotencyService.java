@@ -0,0 +1,214 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.IdempotencyProperties;
+import com.example.paymentprocessor.constant.IdempotencyKeyStatus;
+import com.example.paymentprocessor.exception.IdempotencyKeyConflictException;
+import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.model.IdempotencyKey;
+import com.example.paymentprocessor.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Runs a request at most once per Idempotency-Key and replays its response to later requests with
+// the same key. Completed responses are looked up in memory first, then in the idempotency_keys
+// table, which is what makes the guarantee hold across nodes. A repeat that arrives while the
+// first request is still running waits for it. A running request holds its key for a short lease
+// rather than the full TTL, so a node that crashes mid-request only blocks the key until it lapses.
+@Service
+@Slf4j
+public class IdempotencyService {
+    private final IdempotencyKeyRepository repository;
+    private final IdempotencyProperties properties;
+    private final Cache<String, StoredResponse> completed;
+    // Requests running on this node; a local repeat waits on the future instead of polling
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyRepository repository, IdempotencyProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxCachedResponses())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    // Empty when the handler ran for this request; otherwise the response to replay
+    public Optional<StoredResponse> execute(String key, String path, String requestHash,
+                                            Supplier<StoredResponse> handler) {
+        Start start = start(key, path, requestHash);
+        if (start.replay() != null) {
+            return Optional.of(start.replay());
+        }
+        StoredResponse response;
+        try {
+            response = handler.get();
+        } catch (RuntimeException e) {
+            release(start.claim());
+            throw e;
+        }
+        finish(start.claim(), response);
+        return Optional.empty();
+    }
+
+    // The steps of execute for callers that cannot block while the handler runs: either the response
+    // to replay, or a claim on the key that must be passed to finish or release. Blocks while
+    // another request holds the key, for up to the wait timeout.
+    public Start start(String key, String path, String requestHash) {
+        String cacheKey = path + ' ' + key;
+        long deadline = System.nanoTime() + properties.getWaitTimeout().toNanos();
+        while (true) {
+            StoredResponse cached = completed.getIfPresent(cacheKey);
+            if (cached != null) {
+                return new Start(matching(cached, requestHash), null);
+            }
+
+            CompletableFuture<StoredResponse> flight = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> existing = inFlight.putIfAbsent(cacheKey, flight);
+            if (existing != null) {
+                StoredResponse response = await(existing, deadline);
+                if (response != null) {
+                    return new Start(matching(response, requestHash), null);
+                }
+                // The first request did not keep its response; try again from the top
+                continue;
+            }
+
+            StoredResponse response = null;
+            boolean claimedKey = false;
+            try {
+                // Postgres keeps microseconds; the lease must compare equal when read back
+                LocalDateTime lease = LocalDateTime.now().plus(properties.getInProgressLease())
+                        .truncatedTo(ChronoUnit.MICROS);
+                Optional<Long> claimed = repository.claim(key, path, requestHash, lease);
+                if (claimed.isPresent()) {
+                    claimedKey = true;
+                    return new Start(null, new Claim(cacheKey, claimed.get(), lease, flight));
+                }
+                response = awaitOtherNode(key, path, deadline);
+                if (response == null) {
+                    continue;
+                }
+                completed.put(cacheKey, response);
+                return new Start(matching(response, requestHash), null);
+            } finally {
+                // A claimed key stays in flight until finish or release
+                if (!claimedKey) {
+                    inFlight.remove(cacheKey, flight);
+                    flight.complete(response);
+                }
+            }
+        }
+    }
+
+    // Stores the handler's response for replay; server errors are not stored, so the client can
+    // retry them with the same key
+    public void finish(Claim claim, StoredResponse response) {
+        StoredResponse stored = null;
+        try {
+            if (response.status() >= 500) {
+                repository.release(claim.id(), claim.lease());
+                return;
+            }
+            if (repository.complete(claim.id(), claim.lease(), response.status(), response.body(),
+                    LocalDateTime.now().plus(properties.getTtl())) == 0) {
+                log.warn("Idempotency key {} was taken over after its lease ran out; response not stored", claim.id());
+            }
+            stored = response;
+            completed.put(claim.cacheKey(), response);
+        } finally {
+            inFlight.remove(claim.cacheKey(), claim.flight());
+            claim.flight().complete(stored);
+        }
+    }
+
+    // Gives the key up without a response, when the handler failed or was cancelled
+    public void release(Claim claim) {
+        try {
+            repository.release(claim.id(), claim.lease());
+        } finally {
+            inFlight.remove(claim.cacheKey(), claim.flight());
+            claim.flight().complete(null);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> flight, long deadline) {
+        try {
+            return flight.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw stillInProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillInProgress();
+        } catch (ExecutionException e) {
+            // Only the request that owns the key sees its failure
+            return null;
+        }
+    }
+
+    // Null when the other request gave up the key without a response or its lease ran out
+    private StoredResponse awaitOtherNode(String key, String path, long deadline) {
+        while (true) {
+            Optional<IdempotencyKey> row = repository.findByIdempotencyKeyAndRequestPath(key, path);
+            if (row.isEmpty() || row.get().getExpiresAt().isBefore(LocalDateTime.now())) {
+                return null;
+            }
+            if (row.get().getStatus() == IdempotencyKeyStatus.COMPLETED) {
+                return new StoredResponse(row.get().getRequestHash(), row.get().getResponseStatus(),
+                        row.get().getResponseBody());
+            }
+            if (System.nanoTime() >= deadline) {
+                throw stillInProgress();
+            }
+            LockSupport.parkNanos(properties.getPollInterval().toNanos());
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw stillInProgress();
+            }
+        }
+    }
+
+    private static StoredResponse matching(StoredResponse response, String requestHash) {
+        if (!response.requestHash().equals(requestHash)) {
+            throw new PaymentException("Idempotency-Key was already used with a different request body");
+        }
+        return response;
+    }
+
+    private static IdempotencyKeyConflictException stillInProgress() {
+        return new IdempotencyKeyConflictException("A request with this Idempotency-Key is still in progress");
+    }
+
+    @Scheduled(fixedDelayString = "#{@idempotencyProperties.cleanupInterval.toMillis()}")
+    public void deleteExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    public record StoredResponse(String requestHash, int status, byte[] body) {
+    }
+
+    // Exactly one of the two is set
+    public record Start(StoredResponse replay, Claim claim) {
+    }
+
+    // The lease identifies this claim on the row, in case the key is taken over after it lapses
+    public record Claim(String cacheKey, Long id, LocalDateTime lease, CompletableFuture<StoredResponse> flight) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.constant.PaystackEndpoint;
+import com.example.paymentprocessor.data.paystack.PaystackBank;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackRecipient;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.paystack.PaystackTransfer;
+import com.example.paymentprocessor.data.request.PaymentRequest;
+import com.example.paymentprocessor.data.request.TransferRecipientRequest;
+import com.example.paymentprocessor.data.request.TransferRequest;
+import com.example.paymentprocessor.data.response.ApiResponse;
+import com.example.paymentprocessor.exception.PaymentException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Answers with MockPaystackService's responses. paystack.mock-latency delays completion on a
+// timer rather than a sleeping thread, like a real call waiting on the network, and holds a
+// PaystackGuard permit while it waits.
+public class MockAsyncPaystackService implements AsyncPayStackService {
+    private final MockPaystackService responses;
+    private final PaystackGuard guard;
+    private final Duration latency;
+    private final Executor delayed;
+
+    public MockAsyncPaystackService(PaystackProperties properties, RestTemplate restTemplate, PaystackGuard guard,
+                                    PaystackReadRetrier reads) {
+        this.responses = new MockPaystackService(properties, restTemplate, guard, reads, Duration.ZERO);
+        this.guard = guard;
+        this.latency = properties.getMockLatency();
+        // The canned responses are cheap, so they are built on the JDK's single delay-scheduler thread
+        this.delayed = CompletableFuture.delayedExecutor(latency.toMillis(), TimeUnit.MILLISECONDS, Runnable::run);
+    }
+
+    private <T> CompletableFuture<T> respond(PaystackEndpoint endpoint, Supplier<T> response) {
+        if (latency.isZero()) {
+            return CompletableFuture.completedFuture(response.get());
+        }
+        PaystackGuard.Permit permit;
+        try {
+            permit = guard.acquire(endpoint);
+        } catch (PaymentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.supplyAsync(response, delayed)
+                .whenComplete((result, failure) -> permit.complete(false));
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackInitialization>> initializeDeposit(PaymentRequest request) {
+        return respond(PaystackEndpoint.INITIALIZE, () -> responses.initializeDeposit(request));
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackTransaction>> verifyTransaction(String reference) {
+        return respond(PaystackEndpoint.VERIFY, () -> responses.verifyTransaction(reference));
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackRecipient>> createTransferRecipient(TransferRecipientRequest request) {
+        return respond(PaystackEndpoint.CREATE_RECIPIENT, () -> responses.createTransferRecipient(request));
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackTransfer>> initiateTransfer(TransferRequest request) {
+        return respond(PaystackEndpoint.TRANSFER, () -> responses.initiateTransfer(request));
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<List<PaystackTransfer>>> initiateBulkTransfer(List<TransferRequest> requests) {
+        return respond(PaystackEndpoint.BULK_TRANSFER, () -> responses.initiateBulkTransfer(requests));
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<PaystackTransfer>> verifyTransfer(String reference) {
+        return respond(PaystackEndpoint.VERIFY_TRANSFER, () -> responses.verifyTransfer(reference));
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse<List<PaystackBank>>> listBanks() {
+        return respond(PaystackEndpoint.LIST_BANKS, () -> responses.listBanks());
+    }
+}
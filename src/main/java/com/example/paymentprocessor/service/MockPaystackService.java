@@ -1,13 +1,21 @@
 package com.example.paymentprocessor.service;
 import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.constant.PaystackEndpoint;
+import com.example.paymentprocessor.data.paystack.PaystackBank;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackRecipient;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.paystack.PaystackTransfer;
 import com.example.paymentprocessor.data.request.PaymentRequest;
 import com.example.paymentprocessor.data.request.TransferRecipientRequest;
 import com.example.paymentprocessor.data.request.TransferRequest;
 import com.example.paymentprocessor.data.response.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -15,20 +23,47 @@ import java.util.*;
 @Service
 @Slf4j
 public class MockPaystackService extends PayStackServiceImpl {
+    private final PaystackGuard guard;
+    private final Duration latency;
 
-    public MockPaystackService(PaystackProperties properties, RestTemplate restTemplate) {
-        super(properties, restTemplate);
+    @Autowired
+    public MockPaystackService(PaystackProperties properties, RestTemplate restTemplate, PaystackGuard guard,
+                               PaystackReadRetrier reads) {
+        this(properties, restTemplate, guard, reads, properties.getMockLatency());
+    }
+
+    MockPaystackService(PaystackProperties properties, RestTemplate restTemplate, PaystackGuard guard,
+                        PaystackReadRetrier reads, Duration latency) {
+        super(properties, restTemplate, guard, reads);
+        this.guard = guard;
+        this.latency = latency;
+    }
+
+    // The simulated round trip goes through PaystackGuard like a real one, so load tests exercise it
+    private void simulateLatency(PaystackEndpoint endpoint) {
+        if (latency.isZero()) {
+            return;
+        }
+        guard.call(endpoint, () -> {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
     }
     
     @Override
-    public ApiResponse<Map<String, Object>> initializeDeposit(PaymentRequest request) {
-        Map<String, Object> mockData = new HashMap<>();
-        mockData.put("authorization_url", "https://checkout.paystack.com/mock_url");
-        mockData.put("access_code", "mock_access_code");
-        mockData.put("reference", request.getReference() != null ? 
-            request.getReference() : "MOCK_" + UUID.randomUUID().toString());
-
-        return ApiResponse.<Map<String, Object>>builder()
+    public ApiResponse<PaystackInitialization> initializeDeposit(PaymentRequest request) {
+        simulateLatency(PaystackEndpoint.INITIALIZE);
+        PaystackInitialization mockData = new PaystackInitialization(
+            "https://checkout.paystack.com/mock_url",
+            "mock_access_code",
+            request.getReference() != null ? 
+                request.getReference() : "MOCK_" + UUID.randomUUID().toString());
+
+        return ApiResponse.<PaystackInitialization>builder()
             .success(true)
             .message("Payment initialization successful")
             .data(mockData)
@@ -37,18 +72,19 @@ public class MockPaystackService extends PayStackServiceImpl {
     }
 
     @Override
-    public ApiResponse<Map<String, Object>> verifyTransaction(String reference) {
-        Map<String, Object> mockData = new HashMap<>();
-        mockData.put("status", "success");
-        mockData.put("reference", reference);
-        mockData.put("amount", 50000);
-        mockData.put("paid_at", LocalDateTime.now().toString());
-        
-        Map<String, Object> customer = new HashMap<>();
-        customer.put("email", "customer@example.com");
-        mockData.put("customer", customer);
-
-        return ApiResponse.<Map<String, Object>>builder()
+    public ApiResponse<PaystackTransaction> verifyTransaction(String reference) {
+        simulateLatency(PaystackEndpoint.VERIFY);
+        PaystackTransaction mockData = new PaystackTransaction(
+            reference,
+            "success",
+            50000,
+            "NGN",
+            "card",
+            "Successful",
+            LocalDateTime.now().toString(),
+            new PaystackTransaction.Customer("customer@example.com", "CUS_mock"));
+
+        return ApiResponse.<PaystackTransaction>builder()
             .success(true)
             .message("Transaction verification successful")
             .data(mockData)
@@ -57,16 +93,18 @@ public class MockPaystackService extends PayStackServiceImpl {
     }
 
     @Override
-    public ApiResponse<Map<String, Object>> createTransferRecipient(TransferRecipientRequest request) {
-        Map<String, Object> mockData = new HashMap<>();
-        mockData.put("type", request.getType());
-        mockData.put("name", request.getName());
-        mockData.put("account_number", request.getAccount_number());
-        mockData.put("bank_code", request.getBank_code());
-        mockData.put("currency", request.getCurrency());
-        mockData.put("recipient_code", "MOCK_RCP_" + UUID.randomUUID().toString().substring(0, 8));
-
-        return ApiResponse.<Map<String, Object>>builder()
+    public ApiResponse<PaystackRecipient> createTransferRecipient(TransferRecipientRequest request) {
+        simulateLatency(PaystackEndpoint.CREATE_RECIPIENT);
+        PaystackRecipient mockData = new PaystackRecipient(
+            "MOCK_RCP_" + UUID.randomUUID().toString().substring(0, 8),
+            request.getType(),
+            request.getName(),
+            request.getCurrency(),
+            true,
+            new PaystackRecipient.Details(request.getAccount_number(), request.getName(),
+                request.getBank_code(), null));
+
+        return ApiResponse.<PaystackRecipient>builder()
             .success(true)
             .message("Transfer recipient created successfully")
             .data(mockData)
@@ -75,17 +113,19 @@ public class MockPaystackService extends PayStackServiceImpl {
     }
 
     @Override
-    public ApiResponse<Map<String, Object>> initiateTransfer(TransferRequest request) {
-        Map<String, Object> mockData = new HashMap<>();
-        mockData.put("reference", request.getReference() != null ? 
-            request.getReference() : "MOCK_TRF_" + UUID.randomUUID().toString());
-        mockData.put("amount", request.getAmount());
-        mockData.put("status", "success");
-        mockData.put("transfer_code", "MOCK_TRF_" + UUID.randomUUID().toString().substring(0, 8));
-        mockData.put("recipient", request.getRecipient());
-        mockData.put("reason", request.getReason());
-
-        return ApiResponse.<Map<String, Object>>builder()
+    public ApiResponse<PaystackTransfer> initiateTransfer(TransferRequest request) {
+        simulateLatency(PaystackEndpoint.TRANSFER);
+        PaystackTransfer mockData = new PaystackTransfer(
+            request.getReference() != null ? 
+                request.getReference() : "MOCK_TRF_" + UUID.randomUUID().toString(),
+            "success",
+            request.getAmount().toKobo(),
+            "NGN",
+            request.getReason(),
+            request.getRecipient(),
+            "MOCK_TRF_" + UUID.randomUUID().toString().substring(0, 8));
+
+        return ApiResponse.<PaystackTransfer>builder()
             .success(true)
             .message("Transfer initiated successfully")
             .data(mockData)
@@ -94,27 +134,63 @@ public class MockPaystackService extends PayStackServiceImpl {
     }
 
     @Override
-    public ApiResponse<List<Map<String, Object>>> listBanks() {
-        List<Map<String, Object>> mockBanks = new ArrayList<>();
-        
-        Map<String, Object> gtBank = new HashMap<>();
-        gtBank.put("name", "Guaranty Trust Bank");
-        gtBank.put("code", "058");
-        gtBank.put("active", true);
-        
-        Map<String, Object> firstBank = new HashMap<>();
-        firstBank.put("name", "First Bank of Nigeria");
-        firstBank.put("code", "011");
-        firstBank.put("active", true);
-        
-        mockBanks.add(gtBank);
-        mockBanks.add(firstBank);
-
-        return ApiResponse.<List<Map<String, Object>>>builder()
+    public ApiResponse<List<PaystackTransfer>> initiateBulkTransfer(List<TransferRequest> requests) {
+        simulateLatency(PaystackEndpoint.BULK_TRANSFER);
+        List<PaystackTransfer> mockTransfers = new ArrayList<>();
+        for (TransferRequest request : requests) {
+            mockTransfers.add(new PaystackTransfer(
+                request.getReference(),
+                "success",
+                request.getAmount().toKobo(),
+                "NGN",
+                request.getReason(),
+                request.getRecipient(),
+                "MOCK_TRF_" + UUID.randomUUID().toString().substring(0, 8)));
+        }
+
+        return ApiResponse.<List<PaystackTransfer>>builder()
+            .success(true)
+            .message("Bulk transfer initiated successfully")
+            .data(mockTransfers)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+
+    // Every transfer the mock is asked about went through
+    @Override
+    public ApiResponse<PaystackTransfer> verifyTransfer(String reference) {
+        simulateLatency(PaystackEndpoint.VERIFY_TRANSFER);
+        PaystackTransfer mockData = new PaystackTransfer(
+            reference,
+            "success",
+            0,
+            "NGN",
+            null,
+            null,
+            "MOCK_TRF_" + UUID.randomUUID().toString().substring(0, 8));
+
+        return ApiResponse.<PaystackTransfer>builder()
+            .success(true)
+            .message("Transfer verification successful")
+            .data(mockData)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+
+    @Override
+    public ApiResponse<List<PaystackBank>> listBanks() {
+        simulateLatency(PaystackEndpoint.LIST_BANKS);
+        List<PaystackBank> mockBanks = new ArrayList<>();
+        mockBanks.add(new PaystackBank("Guaranty Trust Bank", "guaranty-trust-bank", "058", "058152036",
+            "Nigeria", "NGN", "nuban", true));
+        mockBanks.add(new PaystackBank("First Bank of Nigeria", "first-bank-of-nigeria", "011", "011151003",
+            "Nigeria", "NGN", "nuban", true));
+
+        return ApiResponse.<List<PaystackBank>>builder()
             .success(true)
             .message("Banks retrieved successfully")
             .data(mockBanks)
             .timestamp(LocalDateTime.now())
             .build();
     }
-}
\ No newline at end of file
+}
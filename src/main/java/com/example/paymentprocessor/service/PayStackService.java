@@ -1,17 +1,23 @@
 package com.example.paymentprocessor.service;
 
+import com.example.paymentprocessor.data.paystack.PaystackBank;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackRecipient;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.paystack.PaystackTransfer;
 import com.example.paymentprocessor.data.request.PaymentRequest;
 import com.example.paymentprocessor.data.request.TransferRecipientRequest;
 import com.example.paymentprocessor.data.request.TransferRequest;
 import com.example.paymentprocessor.data.response.ApiResponse;
 
 import java.util.List;
-import java.util.Map;
 
 public interface PayStackService {
-    ApiResponse<Map<String, Object>> initializeDeposit(PaymentRequest request);
-    ApiResponse<Map<String, Object>> verifyTransaction(String reference);
-    ApiResponse<Map<String, Object>> createTransferRecipient(TransferRecipientRequest request);
-    ApiResponse<Map<String, Object>> initiateTransfer(TransferRequest request);
-    ApiResponse<List<Map<String, Object>>> listBanks();
+    ApiResponse<PaystackInitialization> initializeDeposit(PaymentRequest request);
+    ApiResponse<PaystackTransaction> verifyTransaction(String reference);
+    ApiResponse<PaystackRecipient> createTransferRecipient(TransferRecipientRequest request);
+    ApiResponse<PaystackTransfer> initiateTransfer(TransferRequest request);
+    ApiResponse<List<PaystackTransfer>> initiateBulkTransfer(List<TransferRequest> requests);
+    ApiResponse<PaystackTransfer> verifyTransfer(String reference);
+    ApiResponse<List<PaystackBank>> listBanks();
 }
\ No newline at end of file
@@ -1,19 +1,32 @@
 package com.example.paymentprocessor.service;
 
 import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.constant.PaystackEndpoint;
+import com.example.paymentprocessor.data.paystack.PaystackBank;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackRecipient;
+import com.example.paymentprocessor.data.paystack.PaystackResponse;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.paystack.PaystackTransfer;
 import com.example.paymentprocessor.data.request.PaymentRequest;
 import com.example.paymentprocessor.data.request.TransferRecipientRequest;
 import com.example.paymentprocessor.data.request.TransferRequest;
 import com.example.paymentprocessor.data.response.ApiResponse;
 import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.exception.PaystackResponseException;
+import com.example.paymentprocessor.exception.PaystackUnavailableException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,41 +34,66 @@ import java.util.Map;
 @Slf4j
 public class PayStackServiceImpl implements PayStackService {
 
-    private final String apiKey;
+    // Responses are bound straight from the body stream into these records; fields we do not
+    // declare are skipped by the parser instead of being built into a map tree
+    private static final ParameterizedTypeReference<PaystackResponse<PaystackInitialization>> INITIALIZATION =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<PaystackResponse<PaystackTransaction>> TRANSACTION =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<PaystackResponse<PaystackTransfer>> TRANSFER =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<PaystackResponse<List<PaystackTransfer>>> TRANSFERS =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<PaystackResponse<PaystackRecipient>> RECIPIENT =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<PaystackResponse<List<PaystackBank>>> BANKS =
+            new ParameterizedTypeReference<>() {};
+
+    private final HttpHeaders headers;
     private final RestTemplate restTemplate;
+    private final PaystackGuard guard;
+    private final PaystackReadRetrier reads;
     private final String BASE_URL = "https://api.paystack.co";
 
-    public PayStackServiceImpl(PaystackProperties properties, RestTemplate restTemplate) {
-        this.apiKey = properties.getApiKey();
+    public PayStackServiceImpl(PaystackProperties properties, RestTemplate restTemplate, PaystackGuard guard,
+                               PaystackReadRetrier reads) {
+        this.headers = createHeaders(properties.getApiKey());
         this.restTemplate = restTemplate;
+        this.guard = guard;
+        this.reads = reads;
     }
 
-    private HttpHeaders createHeaders() {
+    private static HttpHeaders createHeaders(String apiKey) {
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + apiKey);
+        headers.setBearerAuth(apiKey);
         headers.setContentType(MediaType.APPLICATION_JSON);
-        log.debug("Created headers: {}", headers);
-        return headers;
+        return HttpHeaders.readOnlyHttpHeaders(headers);
     }
 
     @Override
-    public ApiResponse<Map<String, Object>> initializeDeposit(PaymentRequest request) {
+    public ApiResponse<PaystackInitialization> initializeDeposit(PaymentRequest request) {
         try {
             String url = BASE_URL + "/transaction/initialize";
-            HttpEntity<PaymentRequest> entity = new HttpEntity<>(request, createHeaders());
+            // Paystack takes amounts in kobo
+            Map<String, Object> body = new HashMap<>();
+            body.put("email", request.getEmail());
+            body.put("amount", request.getAmount().toKobo());
+            body.put("reference", request.getReference());
+            body.put("callback_url", request.getCallback_url());
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
             
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<PaystackResponse<PaystackInitialization>> response = guard.call(PaystackEndpoint.INITIALIZE, () -> restTemplate.exchange(
                 url,
                 HttpMethod.POST,
                 entity,
-                Map.class
-            );
+                INITIALIZATION
+            ));
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                return ApiResponse.<Map<String, Object>>builder()
+                return ApiResponse.<PaystackInitialization>builder()
                     .success(true)
                     .message("Payment initialization successful")
-                    .data((Map<String, Object>) response.getBody().get("data"))
+                    .data(response.getBody().data())
                     .timestamp(LocalDateTime.now())
                     .build();
             }
@@ -68,33 +106,31 @@ public class PayStackServiceImpl implements PayStackService {
     }
 
     @Override
-    public ApiResponse<Map<String, Object>> verifyTransaction(String reference) {
+    public ApiResponse<PaystackTransaction> verifyTransaction(String reference) {
         try {
             String url = BASE_URL + "/transaction/verify/" + reference;
-            HttpEntity<?> entity = new HttpEntity<>(createHeaders());
+            HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<PaystackResponse<PaystackTransaction>> response = reads.call(PaystackEndpoint.VERIFY, () -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
-                    Map.class
-            );
+                    TRANSACTION
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                boolean status = (boolean) responseBody.get("status");
+                PaystackResponse<PaystackTransaction> responseBody = response.getBody();
 
-                if (status) {
-                    Map<String, Object> data = (Map<String, Object>) responseBody.get("data");
-                    return ApiResponse.<Map<String, Object>>builder()
+                if (responseBody.status() && responseBody.data() != null) {
+                    return ApiResponse.<PaystackTransaction>builder()
                             .success(true)
                             .message("Transaction verification successful")
-                            .data(data)
+                            .data(responseBody.data())
                             .timestamp(LocalDateTime.now())
                             .build();
                 } else {
-                    String message = (String) responseBody.get("message");
-                    throw new PaymentException(message);
+                    throw new PaymentException(responseBody.message() != null ?
+                            responseBody.message() : "Unable to verify transaction");
                 }
             }
 
@@ -113,28 +149,38 @@ public class PayStackServiceImpl implements PayStackService {
 
 
     @Override
-    public ApiResponse<Map<String, Object>> initiateTransfer(TransferRequest request) {
+    public ApiResponse<PaystackTransfer> initiateTransfer(TransferRequest request) {
         try {
             String url = BASE_URL + "/transfer";
-            HttpEntity<TransferRequest> entity = new HttpEntity<>(request, createHeaders());
+            Map<String, Object> body = new HashMap<>();
+            body.put("source", "balance");
+            body.put("amount", request.getAmount().toKobo());
+            body.put("recipient", request.getRecipient());
+            body.put("reason", request.getReason());
+            body.put("reference", request.getReference());
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
             
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<PaystackResponse<PaystackTransfer>> response = guard.call(PaystackEndpoint.TRANSFER, () -> restTemplate.exchange(
                 url,
                 HttpMethod.POST,
                 entity,
-                Map.class
-            );
+                TRANSFER
+            ));
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                return ApiResponse.<Map<String, Object>>builder()
+                return ApiResponse.<PaystackTransfer>builder()
                     .success(true)
                     .message("Transfer initiated successfully")
-                    .data((Map<String, Object>) response.getBody().get("data"))
+                    .data(response.getBody().data())
                     .timestamp(LocalDateTime.now())
                     .build();
             }
             
             throw new PaymentException("Transfer initiation failed");
+        } catch (HttpStatusCodeException e) {
+            log.error("Transfer initiation failed", e);
+            throw new PaystackResponseException("Transfer initiation failed: " + e.getMessage(),
+                    e.getStatusCode().value());
         } catch (RestClientException e) {
             log.error("Transfer initiation failed", e);
             throw new PaymentException("Transfer initiation failed: " + e.getMessage());
@@ -142,39 +188,118 @@ public class PayStackServiceImpl implements PayStackService {
     }
 
     @Override
-    public ApiResponse<Map<String, Object>> createTransferRecipient(TransferRecipientRequest request) {
+    public ApiResponse<List<PaystackTransfer>> initiateBulkTransfer(List<TransferRequest> requests) {
+        try {
+            String url = BASE_URL + "/transfer/bulk";
+            List<Map<String, Object>> transfers = new ArrayList<>();
+            for (TransferRequest request : requests) {
+                Map<String, Object> transfer = new HashMap<>();
+                transfer.put("amount", request.getAmount().toKobo());
+                transfer.put("recipient", request.getRecipient());
+                transfer.put("reason", request.getReason());
+                transfer.put("reference", request.getReference());
+                transfers.add(transfer);
+            }
+            Map<String, Object> body = new HashMap<>();
+            body.put("currency", "NGN");
+            body.put("source", "balance");
+            body.put("transfers", transfers);
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+
+            ResponseEntity<PaystackResponse<List<PaystackTransfer>>> response = guard.call(PaystackEndpoint.BULK_TRANSFER, () -> restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                entity,
+                TRANSFERS
+            ));
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                return ApiResponse.<List<PaystackTransfer>>builder()
+                    .success(true)
+                    .message("Bulk transfer initiated successfully")
+                    .data(response.getBody().data())
+                    .timestamp(LocalDateTime.now())
+                    .build();
+            }
+
+            throw new PaymentException("Bulk transfer initiation failed");
+        } catch (HttpStatusCodeException e) {
+            log.error("Bulk transfer initiation failed", e);
+            throw new PaystackResponseException("Bulk transfer initiation failed: " + e.getMessage(),
+                    e.getStatusCode().value());
+        } catch (RestClientException e) {
+            log.error("Bulk transfer initiation failed", e);
+            throw new PaymentException("Bulk transfer initiation failed: " + e.getMessage());
+        }
+    }
+
+    // Paystack's current record of a transfer; a 404 means it never created one with this reference
+    @Override
+    public ApiResponse<PaystackTransfer> verifyTransfer(String reference) {
+        try {
+            String url = BASE_URL + "/transfer/verify/" + reference;
+            HttpEntity<?> entity = new HttpEntity<>(headers);
+
+            ResponseEntity<PaystackResponse<PaystackTransfer>> response = reads.call(PaystackEndpoint.VERIFY_TRANSFER, () -> restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    entity,
+                    TRANSFER
+            ));
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null
+                    && response.getBody().data() != null) {
+                return ApiResponse.<PaystackTransfer>builder()
+                        .success(true)
+                        .message("Transfer verification successful")
+                        .data(response.getBody().data())
+                        .timestamp(LocalDateTime.now())
+                        .build();
+            }
+
+            throw new PaymentException("Unable to verify transfer");
+        } catch (HttpStatusCodeException e) {
+            log.error("Transfer verification failed", e);
+            throw new PaystackResponseException("Transfer verification failed: " + e.getMessage(),
+                    e.getStatusCode().value());
+        } catch (RestClientException e) {
+            log.error("Transfer verification failed", e);
+            throw new PaymentException("Transfer verification failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ApiResponse<PaystackRecipient> createTransferRecipient(TransferRecipientRequest request) {
         try {
             String url = BASE_URL + "/transferrecipient";
-            HttpEntity<TransferRecipientRequest> entity = new HttpEntity<>(request, createHeaders());
+            HttpEntity<TransferRecipientRequest> entity = new HttpEntity<>(request, headers);
 
             log.info("Making request to Paystack: URL={}, Request={}", url, request);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<PaystackResponse<PaystackRecipient>> response = guard.call(PaystackEndpoint.CREATE_RECIPIENT, () -> restTemplate.exchange(
                     url,
                     HttpMethod.POST,
                     entity,
-                    Map.class
-            );
+                    RECIPIENT
+            ));
 
             log.info("Received response from Paystack: Status={}, Body={}",
                     response.getStatusCode(), response.getBody());
 
             if ((response.getStatusCode() == HttpStatus.OK || response.getStatusCode() == HttpStatus.CREATED)
                     && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                boolean status = (boolean) responseBody.get("status");
+                PaystackResponse<PaystackRecipient> responseBody = response.getBody();
 
-                if (status) {
-                    Map<String, Object> data = (Map<String, Object>) responseBody.get("data");
-                    return ApiResponse.<Map<String, Object>>builder()
+                if (responseBody.status()) {
+                    return ApiResponse.<PaystackRecipient>builder()
                             .success(true)
-                            .message((String) responseBody.get("message"))
-                            .data(data)
+                            .message(responseBody.message())
+                            .data(responseBody.data())
                             .timestamp(LocalDateTime.now())
                             .build();
                 } else {
-                    String message = responseBody.get("message") != null ?
-                            (String) responseBody.get("message") : "Failed to create transfer recipient";
+                    String message = responseBody.message() != null ?
+                            responseBody.message() : "Failed to create transfer recipient";
                     log.error("Paystack error response: {}", responseBody);
                     throw new PaymentException(message);
                 }
@@ -186,6 +311,8 @@ public class PayStackServiceImpl implements PayStackService {
             log.error("HTTP error when creating transfer recipient. Status: {}, Response: {}",
                     e.getStatusCode(), e.getResponseBodyAsString());
             throw new PaymentException("Failed to create transfer recipient: " + e.getResponseBodyAsString());
+        } catch (PaystackUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error creating transfer recipient", e);
             throw new PaymentException("Failed to create transfer recipient: " + e.getMessage());
@@ -193,25 +320,23 @@ public class PayStackServiceImpl implements PayStackService {
     }
 
     @Override
-    public ApiResponse<List<Map<String, Object>>> listBanks() {
+    public ApiResponse<List<PaystackBank>> listBanks() {
         try {
             String url = BASE_URL + "/bank";
-            HttpEntity<?> entity = new HttpEntity<>(createHeaders());
+            HttpEntity<?> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<PaystackResponse<List<PaystackBank>>> response = reads.call(PaystackEndpoint.LIST_BANKS, () -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
-                    Map.class
-            );
+                    BANKS
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                List<Map<String, Object>> data = (List<Map<String, Object>>) responseBody.get("data");
-                return ApiResponse.<List<Map<String, Object>>>builder()
+                return ApiResponse.<List<PaystackBank>>builder()
                         .success(true)
                         .message("Banks retrieved successfully")
-                        .data(data)
+                        .data(response.getBody().data())
                         .timestamp(LocalDateTime.now())
                         .build();
             }
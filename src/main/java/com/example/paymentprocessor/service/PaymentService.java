@@ -1,43 +1,67 @@
 package com.example.paymentprocessor.service;
 
+import com.example.paymentprocessor.config.PaystackProperties;
 import com.example.paymentprocessor.constant.TransactionStatus;
 import com.example.paymentprocessor.constant.TransactionType;
+import com.example.paymentprocessor.constant.TransferOutboxStatus;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
 import com.example.paymentprocessor.data.request.PaymentRequest;
+import com.example.paymentprocessor.data.request.TransactionHistoryRequest;
 import com.example.paymentprocessor.data.request.TransferRequest;
 import com.example.paymentprocessor.data.response.ApiResponse;
 import com.example.paymentprocessor.data.response.TransactionDTO;
+import com.example.paymentprocessor.data.response.TransactionPage;
+import com.example.paymentprocessor.data.response.WithdrawalStatus;
 import com.example.paymentprocessor.exception.InsufficientFundsException;
 import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.exception.PaystackUnavailableException;
+import com.example.paymentprocessor.exception.TransactionNotFoundException;
+import com.example.paymentprocessor.model.Money;
 import com.example.paymentprocessor.model.Transaction;
+import com.example.paymentprocessor.model.TransferOutbox;
 import com.example.paymentprocessor.repository.TransactionRepository;
-import jakarta.transaction.Transactional;
+import com.example.paymentprocessor.repository.TransferOutboxRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-@Transactional
 public class PaymentService {
     private final PayStackServiceImpl paystackService;
     private final TransactionRepository transactionRepository;
     private final WalletService walletService;
-
-    public PaymentService(PayStackServiceImpl paystackService, TransactionRepository transactionRepository, WalletService walletService) {
+    private final TransactionTemplate transactionTemplate;
+    private final TransferOutboxRepository transferOutboxRepository;
+    private final TransferOutboxDispatcher transferOutboxDispatcher;
+    // Concurrent verifies of one reference (checkout pages polling) share one Paystack call and update
+    private final SingleFlight<String, ApiResponse<PaystackTransaction>> verifications;
+
+    public PaymentService(PayStackServiceImpl paystackService, TransactionRepository transactionRepository,
+                          WalletService walletService, TransactionTemplate transactionTemplate,
+                          TransferOutboxRepository transferOutboxRepository,
+                          TransferOutboxDispatcher transferOutboxDispatcher, PaystackProperties properties) {
         this.paystackService = paystackService;
         this.transactionRepository = transactionRepository;
         this.walletService = walletService;
+        this.transactionTemplate = transactionTemplate;
+        this.transferOutboxRepository = transferOutboxRepository;
+        this.transferOutboxDispatcher = transferOutboxDispatcher;
+        this.verifications = new SingleFlight<>(properties.getVerify().getMemoWindow(),
+                response -> response.isSuccess() && response.getData() != null && response.getData().succeeded());
     }
 
-    public ApiResponse<Map<String, Object>> initializeDeposit(PaymentRequest request) {
+    public ApiResponse<PaystackInitialization> initializeDeposit(PaymentRequest request) {
         if (request.getReference() == null) {
             request.setReference("DEP_" + UUID.randomUUID().toString());
         }
@@ -49,11 +73,12 @@ public class PaymentService {
             .amount(request.getAmount())
             .email(request.getEmail())
             .build();
-        
+
+        // Saved in its own short transaction; no connection is held across the Paystack call
         transactionRepository.save(transaction);
 
         try {
-            ApiResponse<Map<String, Object>> response = paystackService.initializeDeposit(request);
+            ApiResponse<PaystackInitialization> response = paystackService.initializeDeposit(request);
             return response;
         } catch (PaymentException e) {
             transaction.setStatus(TransactionStatus.FAILED);
@@ -62,124 +87,187 @@ public class PaymentService {
         }
     }
 
-    public ApiResponse<Map<String, Object>> verifyTransaction(String reference) {
-        try {
-            log.info("Verifying transaction with reference: {}", reference);
-            ApiResponse<Map<String, Object>> paystackResponse = paystackService.verifyTransaction(reference);
-
-            if (paystackResponse.isSuccess()) {
-                Map<String, Object> data = paystackResponse.getData();
-                String status = (String) data.getOrDefault("status", "failed");
-                log.info("Transaction status from Paystack: {}", status);
-
-                Transaction transaction = transactionRepository.findByReference(reference)
-                        .orElseGet(() -> {
-                            log.info("Creating new transaction record for reference: {}", reference);
-                            return Transaction.builder()
-                                    .reference(reference)
-                                    .type(TransactionType.DEPOSIT)
-                                    .build();
-                        });
-
-                // Store old status to check if this is a new success
-                TransactionStatus oldStatus = transaction.getStatus();
-
-                updateTransactionFromPaystackResponse(transaction, data);
-                log.info("Updated transaction status: {}, amount: {}, email: {}",
-                        transaction.getStatus(), transaction.getAmount(), transaction.getEmail());
-
-                // Changed condition to check old status instead
-                if ("success".equalsIgnoreCase(status) &&
-                        (oldStatus == null || oldStatus != TransactionStatus.SUCCESS)) {
-                    log.info("Processing successful transaction for wallet credit");
-
-                    String email = transaction.getEmail();
-                    if (email != null && !email.isEmpty()) {
-                        // Amount is already in Naira, no need to convert again
-                        BigDecimal amountInNaira = transaction.getAmount();
-                        log.info("Crediting wallet with amount: {} Naira", amountInNaira);
-
-                        try {
-                            walletService.creditWallet(email, amountInNaira);
-                            log.info("Successfully credited wallet");
-                        } catch (Exception e) {
-                            log.error("Error crediting wallet: ", e);
-                            throw e;
-                        }
-                    } else {
-                        log.warn("No email found in transaction, skipping wallet credit");
-                    }
-                } else {
-                    log.info("Transaction not eligible for wallet credit. Status: {}, Previous Status: {}",
-                            status, oldStatus);
-                }
-
-                Transaction savedTransaction = transactionRepository.save(transaction);
-                log.info("Saved transaction with ID: {}", savedTransaction.getId());
-            } else {
-                log.warn("Paystack verification was not successful");
-            }
-
-            return paystackResponse;
+    public ApiResponse<PaystackTransaction> verifyTransaction(String reference) {
+        return verifications.execute(reference, () -> verifyAndApply(reference));
+    }
 
+    private ApiResponse<PaystackTransaction> verifyAndApply(String reference) {
+        log.info("Verifying transaction with reference: {}", reference);
+        ApiResponse<PaystackTransaction> paystackResponse;
+        try {
+            paystackResponse = paystackService.verifyTransaction(reference);
+        } catch (PaystackUnavailableException e) {
+            // Paystack was not asked, so nothing is marked FAILED; a settled transaction keeps its answer
+            log.warn("Verification of {} rejected: {}", reference, e.getMessage());
+            return lastRecordedVerification(reference).orElseThrow(() -> e);
         } catch (PaymentException e) {
             log.error("Payment exception during verification: ", e);
-            transactionRepository.findByReference(reference)
-                    .ifPresent(transaction -> {
-                        transaction.setStatus(TransactionStatus.FAILED);
-                        transactionRepository.save(transaction);
-                    });
+            transactionTemplate.executeWithoutResult(status ->
+                    transactionRepository.findForUpdateByReference(reference)
+                            .ifPresent(transaction -> {
+                                transaction.setStatus(TransactionStatus.FAILED);
+                                transactionRepository.save(transaction);
+                            }));
             throw e;
         }
+
+        if (paystackResponse.isSuccess()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    applyVerification(reference, paystackResponse.getData()));
+        } else {
+            log.warn("Paystack verification was not successful");
+        }
+
+        return paystackResponse;
     }
 
-    public ApiResponse<Map<String, Object>> initiateWithdrawal(TransferRequest request) {
+    private Optional<ApiResponse<PaystackTransaction>> lastRecordedVerification(String reference) {
+        return transactionRepository.findByReference(reference)
+                .filter(transaction -> transaction.getStatus() != TransactionStatus.PENDING)
+                .map(transaction -> ApiResponse.<PaystackTransaction>builder()
+                        .success(true)
+                        .message("Paystack is unavailable; returning the last recorded status")
+                        .data(new PaystackTransaction(
+                                reference,
+                                transaction.getStatus() == TransactionStatus.SUCCESS ? "success" : "failed",
+                                transaction.getAmount().toKobo(),
+                                "NGN",
+                                null,
+                                null,
+                                null,
+                                new PaystackTransaction.Customer(transaction.getEmail(), null)))
+                        .timestamp(LocalDateTime.now())
+                        .build());
+    }
+
+    // Used by the reconciler: unlike verifyTransaction, a failed Paystack call leaves the transaction PENDING
+    public boolean reconcileTransaction(String reference) {
+        ApiResponse<PaystackTransaction> paystackResponse;
         try {
-            // Amount comes in Naira from the request
-            BigDecimal withdrawalAmount = new BigDecimal(request.getAmount());
-
-            // Check balance and debit wallet (amount in Naira)
-            walletService.debitWallet(request.getEmail(), withdrawalAmount);
-
-            // Create transaction record (storing amount in Naira)
-            Transaction transaction = Transaction.builder()
-                    .reference(request.getReference() != null ?
-                            request.getReference() : "WIT_" + UUID.randomUUID().toString())
-                    .type(TransactionType.WITHDRAWAL)
-                    .status(TransactionStatus.PENDING)
-                    .amount(withdrawalAmount)  // Store in Naira
-                    .email(request.getEmail())
-                    .recipientCode(request.getRecipient())
+            paystackResponse = paystackService.verifyTransaction(reference);
+        } catch (PaymentException e) {
+            log.warn("Could not reconcile transaction {}: {}", reference, e.getMessage());
+            return false;
+        }
+
+        if (!paystackResponse.isSuccess()) {
+            return false;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                applyVerification(reference, paystackResponse.getData()));
+        return true;
+    }
+
+    public void applyPaystackCharge(String reference, PaystackTransaction data) {
+        transactionTemplate.executeWithoutResult(status -> applyVerification(reference, data));
+    }
+
+    public void applyPaystackTransfer(String reference, boolean success) {
+        transactionTemplate.executeWithoutResult(status ->
+                transactionRepository.findForUpdateByReference(reference)
+                        .filter(transaction -> transaction.getType() == TransactionType.WITHDRAWAL)
+                        .filter(transaction -> transaction.getStatus() != TransactionStatus.FAILED)
+                        .ifPresentOrElse(transaction -> {
+                            if (!success) {
+                                // Paystack failed or reversed the payout; refund in Naira
+                                walletService.creditWallet(transaction.getEmail(), transaction.getAmount(),
+                                        transaction.getReference());
+                            }
+                            transaction.setStatus(success ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+                            transactionRepository.save(transaction);
+                        }, () -> log.info("No open withdrawal found for transfer reference: {}", reference)));
+    }
+
+    // Applies Paystack results for many references in one transaction; rows are locked in id order
+    // so overlapping batches cannot deadlock
+    public void applyVerifications(Map<String, PaystackTransaction> dataByReference) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Transaction> existing = transactionRepository
+                    .findForUpdateByReferenceInOrderByIdAsc(dataByReference.keySet()).stream()
+                    .collect(Collectors.toMap(Transaction::getReference, Function.identity(), (first, second) -> first));
+            List<Transaction> transactions = dataByReference.entrySet().stream()
+                    .map(entry -> applyVerification(existing.get(entry.getKey()), entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toList());
+            transactionRepository.saveAll(transactions);
+            log.info("Saved {} verified transactions", transactions.size());
+        });
+    }
+
+    private void applyVerification(String reference, PaystackTransaction data) {
+        // Row lock so concurrent verifications of one reference cannot both credit the wallet
+        Transaction transaction = applyVerification(
+                transactionRepository.findForUpdateByReference(reference).orElse(null), reference, data);
+        Transaction savedTransaction = transactionRepository.save(transaction);
+        log.info("Saved transaction with ID: {}", savedTransaction.getId());
+    }
+
+    private Transaction applyVerification(Transaction existing, String reference, PaystackTransaction data) {
+        log.info("Transaction status from Paystack: {}", data.status());
+
+        Transaction transaction = existing;
+        if (transaction == null) {
+            log.info("Creating new transaction record for reference: {}", reference);
+            transaction = Transaction.builder()
+                    .reference(reference)
+                    .type(TransactionType.DEPOSIT)
                     .build();
+        }
 
-            transactionRepository.save(transaction);
+        // Store old status to check if this is a new success
+        TransactionStatus oldStatus = transaction.getStatus();
+
+        updateTransactionFromPaystackResponse(transaction, data);
+        log.info("Updated transaction status: {}, amount: {}, email: {}",
+                transaction.getStatus(), transaction.getAmount(), transaction.getEmail());
+
+        if (data.succeeded() &&
+                (oldStatus == null || oldStatus != TransactionStatus.SUCCESS)) {
+            log.info("Processing successful transaction for wallet credit");
 
-            try {
-                // Update the amount in the existing request to kobo for Paystack
-                request.setAmount(withdrawalAmount.multiply(new BigDecimal(100)).intValue());  // Convert to kobo
-
-                ApiResponse<Map<String, Object>> response = paystackService.initiateTransfer(request);
-
-                if (!response.isSuccess()) {
-                    // Rollback in Naira
-                    walletService.creditWallet(request.getEmail(), withdrawalAmount);
-                    transaction.setStatus(TransactionStatus.FAILED);
-                    transactionRepository.save(transaction);
-                } else {
-                    transaction.setStatus(TransactionStatus.SUCCESS);
-                    transactionRepository.save(transaction);
-                }
-
-                return response;
-
-            } catch (Exception e) {
-                // Rollback in Naira
-                walletService.creditWallet(request.getEmail(), withdrawalAmount);
-                transaction.setStatus(TransactionStatus.FAILED);
-                transactionRepository.save(transaction);
-                throw e;
+            String email = transaction.getEmail();
+            if (email != null && !email.isEmpty()) {
+                Money amount = transaction.getAmount();
+                log.info("Crediting wallet with amount: {} Naira", amount);
+                walletService.creditWallet(email, amount, reference);
+                log.info("Successfully credited wallet");
+            } else {
+                log.warn("No email found in transaction, skipping wallet credit");
             }
+        } else {
+            log.info("Transaction not eligible for wallet credit. Status: {}, Previous Status: {}",
+                    data.status(), oldStatus);
+        }
+        return transaction;
+    }
+
+    // The debit, the PENDING record and the outbox row commit together; TransferOutboxDispatcher
+    // sends the transfer to Paystack and settles or refunds it
+    public ApiResponse<Map<String, Object>> initiateWithdrawal(TransferRequest request) {
+        Money withdrawalAmount = request.getAmount();
 
+        // Paystack only accepts lowercase alphanumeric, '-' and '_' in transfer references
+        String reference = request.getReference() != null ?
+                request.getReference() : "wit_" + UUID.randomUUID();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                walletService.debitWallet(request.getEmail(), withdrawalAmount, reference);
+                transactionRepository.save(Transaction.builder()
+                        .reference(reference)
+                        .type(TransactionType.WITHDRAWAL)
+                        .status(TransactionStatus.PENDING)
+                        .amount(withdrawalAmount)
+                        .email(request.getEmail())
+                        .recipientCode(request.getRecipient())
+                        .reason(request.getReason())
+                        .build());
+                transferOutboxRepository.save(TransferOutbox.builder()
+                        .reference(reference)
+                        .status(TransferOutboxStatus.PENDING)
+                        .attempts(0)
+                        .nextAttemptAt(LocalDateTime.now())
+                        .build());
+            });
         } catch (InsufficientFundsException e) {
             return ApiResponse.<Map<String, Object>>builder()
                     .success(false)
@@ -187,10 +275,50 @@ public class PaymentService {
                     .timestamp(LocalDateTime.now())
                     .build();
         }
+        transferOutboxDispatcher.wakeUp();
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("reference", reference);
+        data.put("status", TransactionStatus.PENDING);
+        return ApiResponse.<Map<String, Object>>builder()
+                .success(true)
+                .message("Withdrawal accepted")
+                .data(data)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    public WithdrawalStatus getWithdrawalStatus(String reference) {
+        Transaction transaction = transactionRepository.findByReference(reference)
+                .filter(found -> found.getType() == TransactionType.WITHDRAWAL)
+                .orElseThrow(() -> new TransactionNotFoundException("Withdrawal not found: " + reference));
+        // Bulk items are queued like single withdrawals; only those their wallet could not cover have no row
+        Optional<TransferOutbox> outbox = transferOutboxRepository.findByReference(reference);
+        return WithdrawalStatus.builder()
+                .reference(transaction.getReference())
+                .status(transaction.getStatus())
+                .amount(transaction.getAmount())
+                .email(transaction.getEmail())
+                .recipientCode(transaction.getRecipientCode())
+                .dispatchStatus(outbox.map(TransferOutbox::getStatus).orElse(null))
+                .attempts(outbox.map(TransferOutbox::getAttempts).orElse(null))
+                .nextAttemptAt(outbox.filter(row -> row.getStatus() == TransferOutboxStatus.PENDING)
+                        .map(TransferOutbox::getNextAttemptAt).orElse(null))
+                .lastError(outbox.map(TransferOutbox::getLastError).orElse(null))
+                .createdAt(transaction.getCreatedAt())
+                .updatedAt(transaction.getUpdatedAt())
+                .build();
     }
 
-    public List<TransactionDTO> getUserTransactions(String email) {
-        return transactionRepository.findByEmail(email).stream()
+    public TransactionPage getUserTransactions(String email, TransactionHistoryRequest filter) {
+        HistoryCursor.Position after = HistoryCursor.decode(filter.getCursor());
+        List<TransactionDTO> transactions = transactionRepository.findHistory(email, filter,
+                after == null ? null : after.createdAt(), after == null ? null : after.id(), filter.getLimit() + 1);
+        return HistoryCursor.page(transactions, filter.getLimit());
+    }
+
+    public List<TransactionDTO> getBatchTransactions(String batchReference) {
+        return transactionRepository.findByBatchReferenceOrderByIdAsc(batchReference).stream()
             .map(this::convertToDTO)
             .collect(Collectors.toList());
     }
@@ -206,21 +334,11 @@ public class PaymentService {
             .build();
     }
 
-    private void updateTransactionFromPaystackResponse(Transaction transaction, Map<String, Object> paystackData) {
-        String status = (String) paystackData.getOrDefault("status", "failed");
-        Number amountInKobo = (Number) paystackData.getOrDefault("amount", 0);
-
-        String email = null;
-        if (paystackData.get("customer") instanceof Map) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> customer = (Map<String, Object>) paystackData.get("customer");
-            email = (String) customer.getOrDefault("email", "");
-        }
+    private void updateTransactionFromPaystackResponse(Transaction transaction, PaystackTransaction paystackData) {
+        String email = paystackData.customer() != null ? paystackData.customer().email() : null;
 
-        transaction.setStatus("success".equalsIgnoreCase(status) ?
-                TransactionStatus.SUCCESS : TransactionStatus.FAILED);
-        // Store amount in Naira in the transaction
-        transaction.setAmount(new BigDecimal(amountInKobo.toString()).divide(new BigDecimal(100), 2, RoundingMode.HALF_UP));
+        transaction.setStatus(paystackData.succeeded() ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+        transaction.setAmount(Money.ofKobo(paystackData.amount()));
 
         if (email != null && !email.isEmpty()) {
             transaction.setEmail(email);
@@ -229,7 +347,10 @@ public class PaymentService {
 
 
     public ApiResponse<Map<String, Object>> checkBalance(String email) {
-        BigDecimal balance = walletService.getBalance(email);
+        return balanceResponse(email, walletService.getBalance(email));
+    }
+
+    public static ApiResponse<Map<String, Object>> balanceResponse(String email, Money balance) {
         Map<String, Object> data = new HashMap<>();
         data.put("balance", balance);
         data.put("email", email);
@@ -241,4 +362,18 @@ public class PaymentService {
                 .timestamp(LocalDateTime.now())
                 .build();
     }
-}
\ No newline at end of file
+
+    public ApiResponse<Map<String, Object>> setWalletShards(String email, int shards) {
+        walletService.setShardCount(email, shards);
+        Map<String, Object> data = new HashMap<>();
+        data.put("email", email);
+        data.put("shards", shards);
+
+        return ApiResponse.<Map<String, Object>>builder()
+                .success(true)
+                .message("Wallet shard count updated successfully")
+                .data(data)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.constant.PaystackEndpoint;
+import com.example.paymentprocessor.exception.PaystackUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// Outbound protection for Paystack calls. Each endpoint has its own adaptive in-flight limit, since
+// their normal latencies differ, and its own circuit breaker, so a failing transfer API does not
+// stop verifications. Calls over the limit or against an open circuit fail at once with
+// PaystackUnavailableException instead of waiting on a Paystack that is already struggling.
+@Component
+public class PaystackGuard {
+    private static final Duration LIMITED_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final boolean enabled;
+    private final long slowCallNanos;
+    private final Map<PaystackEndpoint, Protection> protections = new EnumMap<>(PaystackEndpoint.class);
+
+    public PaystackGuard(PaystackProperties properties, MeterRegistry meterRegistry) {
+        PaystackProperties.Protection config = properties.getProtection();
+        this.enabled = config.isEnabled();
+        this.slowCallNanos = config.getSlowCallThreshold().toNanos();
+
+        for (PaystackEndpoint endpoint : PaystackEndpoint.values()) {
+            Protection protection = new Protection(
+                    new AdaptiveConcurrencyLimit(config.getInitialLimit(), config.getMinLimit(),
+                            config.getMaxLimit(), config.getRttTolerance()),
+                    new CircuitBreaker(endpoint.getPath(), config.getWindowSize(), config.getMinimumCalls(),
+                            config.getFailureRatePercent(), config.getOpenDuration(), config.getHalfOpenCalls()),
+                    Counter.builder("paystack.calls.rejected").tag("endpoint", endpoint.getPath())
+                            .tag("reason", "limit").register(meterRegistry),
+                    Counter.builder("paystack.calls.rejected").tag("endpoint", endpoint.getPath())
+                            .tag("reason", "circuit_open").register(meterRegistry));
+            protections.put(endpoint, protection);
+
+            Gauge.builder("paystack.calls.limit", protection.limit(), AdaptiveConcurrencyLimit::getLimit)
+                    .tag("endpoint", endpoint.getPath())
+                    .register(meterRegistry);
+            Gauge.builder("paystack.calls.in_flight", protection.limit(), AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("endpoint", endpoint.getPath())
+                    .register(meterRegistry);
+            Gauge.builder("paystack.circuit.state", protection.breaker(), breaker -> breaker.getState().ordinal())
+                    .description("0 closed, 1 open, 2 half open")
+                    .tag("endpoint", endpoint.getPath())
+                    .register(meterRegistry);
+        }
+    }
+
+    // Takes a slot for one call. The permit must be completed or cancelled exactly once.
+    public Permit acquire(PaystackEndpoint endpoint) {
+        if (!enabled) {
+            return Permit.UNGUARDED;
+        }
+        Protection protection = protections.get(endpoint);
+        int inFlight = protection.limit().tryAcquire();
+        if (inFlight == 0) {
+            protection.limitRejections().increment();
+            throw new PaystackUnavailableException("Too many concurrent Paystack " + endpoint.getPath() +
+                    " requests; try again shortly", LIMITED_RETRY_AFTER);
+        }
+        CircuitBreaker.Admission admission = protection.breaker().tryAcquire();
+        if (admission == CircuitBreaker.Admission.REJECTED) {
+            protection.limit().release();
+            protection.circuitRejections().increment();
+            Duration retryAfter = protection.breaker().remainingOpen();
+            throw new PaystackUnavailableException("Paystack " + endpoint.getPath() +
+                    " is unavailable; try again shortly",
+                    retryAfter.isZero() ? LIMITED_RETRY_AFTER : retryAfter);
+        }
+        return new Permit(this, protection, admission, inFlight);
+    }
+
+    // Runs a RestTemplate call under a permit. Transport errors, 5xx and 429 count against Paystack;
+    // other error statuses mean it answered normally.
+    public <T> T call(PaystackEndpoint endpoint, Supplier<T> call) {
+        Permit permit = acquire(endpoint);
+        try {
+            T result = call.get();
+            permit.complete(false);
+            return result;
+        } catch (HttpStatusCodeException e) {
+            permit.complete(isFailure(e.getStatusCode().value()));
+            throw e;
+        } catch (RuntimeException | Error e) {
+            permit.complete(true);
+            throw e;
+        }
+    }
+
+    public static boolean isFailure(int status) {
+        return status >= 500 || status == 429;
+    }
+
+    public static final class Permit {
+        private static final Permit UNGUARDED = new Permit(null, null, null, 0);
+
+        private final PaystackGuard guard;
+        private final Protection protection;
+        private final CircuitBreaker.Admission admission;
+        private final int inFlightAtStart;
+        private final long startedAt = System.nanoTime();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Permit(PaystackGuard guard, Protection protection, CircuitBreaker.Admission admission,
+                       int inFlightAtStart) {
+            this.guard = guard;
+            this.protection = protection;
+            this.admission = admission;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void complete(boolean failed) {
+            if (protection == null || !done.compareAndSet(false, true)) {
+                return;
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            protection.limit().release();
+            if (failed) {
+                protection.limit().onFailure();
+            } else {
+                protection.limit().onSuccess(elapsed, inFlightAtStart);
+            }
+            protection.breaker().onResult(admission, failed || elapsed > guard.slowCallNanos);
+        }
+
+        // For calls abandoned by the caller, which say nothing about Paystack's health
+        public void cancel() {
+            if (protection == null || !done.compareAndSet(false, true)) {
+                return;
+            }
+            protection.limit().release();
+            protection.breaker().onCancel(admission);
+        }
+    }
+
+    private record Protection(AdaptiveConcurrencyLimit limit, CircuitBreaker breaker,
+                              Counter limitRejections, Counter circuitRejections) {
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.config.WorkerThreadFactory;
+import com.example.paymentprocessor.constant.PaystackEndpoint;
+import com.example.paymentprocessor.exception.PaystackUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs idempotent Paystack reads (GET /transaction/verify, GET /transfer/verify, GET /bank). Each attempt goes through
+// PaystackGuard. Dropped connections, 429 and 502-504 are retried with exponential backoff and full
+// jitter while the time budget lasts, and a read still running past its endpoint's recent p95 gets
+// a second, hedged attempt whose answer is used if it comes first. Retries and hedges draw on a
+// shared budget of a fraction of reads, so an outage cannot multiply the request rate. The time
+// budget is also the read's deadline: the caller stops waiting when it runs out, even mid-attempt,
+// and an attempt still running is left to the HTTP call timeout with its result dropped.
+// Transfers and initializations are not idempotent and never come through here.
+@Component
+@Slf4j
+public class PaystackReadRetrier {
+    // Recent latencies tell little about the tail until this many reads have been timed
+    private static final int HEDGE_MIN_SAMPLES = 20;
+    private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final PaystackGuard guard;
+    private final PaystackProperties.ReadRetry properties;
+    private final RetryBudget budget;
+    // Every attempt runs here, hedged or not, so the caller can give up waiting at the deadline
+    private final ExecutorService readExecutor;
+    private final Map<PaystackEndpoint, Read> reads = new EnumMap<>(PaystackEndpoint.class);
+
+    public PaystackReadRetrier(PaystackGuard guard, PaystackProperties properties,
+                               WorkerThreadFactory threadFactory, MeterRegistry meterRegistry) {
+        this.guard = guard;
+        this.properties = properties.getReadRetry();
+        this.budget = new RetryBudget(this.properties.getBudgetRatio(), this.properties.getBudgetMaxTokens());
+        this.readExecutor = Executors.newCachedThreadPool(threadFactory.named("paystack-read-"));
+
+        for (PaystackEndpoint endpoint : new PaystackEndpoint[]{PaystackEndpoint.VERIFY,
+                PaystackEndpoint.VERIFY_TRANSFER, PaystackEndpoint.LIST_BANKS}) {
+            reads.put(endpoint, new Read(
+                    Timer.builder("paystack.read.latency")
+                            .description("Successful idempotent Paystack reads, per attempt")
+                            .tag("endpoint", endpoint.getPath())
+                            .publishPercentiles(properties.getReadRetry().getHedgePercentile())
+                            .distributionStatisticExpiry(Duration.ofMinutes(1))
+                            .register(meterRegistry),
+                    Counter.builder("paystack.read.extra").tag("endpoint", endpoint.getPath())
+                            .tag("kind", "retry").register(meterRegistry),
+                    Counter.builder("paystack.read.extra").tag("endpoint", endpoint.getPath())
+                            .tag("kind", "hedge").register(meterRegistry)));
+        }
+    }
+
+    public <T> T call(PaystackEndpoint endpoint, Supplier<T> attempt) {
+        Read read = reads.get(endpoint);
+        if (read == null) {
+            throw new IllegalArgumentException(endpoint + " is not an idempotent read");
+        }
+        budget.onRead();
+        long deadline = System.nanoTime() + properties.getTimeBudget().toNanos();
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return hedged(read, endpoint, attempt, deadline);
+            } catch (RuntimeException e) {
+                if (!isRetryable(e) || attempts >= properties.getMaxAttempts()) {
+                    throw e;
+                }
+                long backoff = backoffNanos(attempts);
+                if (System.nanoTime() + backoff >= deadline || !budget.tryAcquire()) {
+                    throw e;
+                }
+                read.retries.increment();
+                log.info("Retrying Paystack {} in {} ms: {}", endpoint.getPath(),
+                        TimeUnit.NANOSECONDS.toMillis(backoff), e.getMessage());
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private <T> T timed(Read read, PaystackEndpoint endpoint, Supplier<T> attempt) {
+        long start = System.nanoTime();
+        T result = guard.call(endpoint, attempt);
+        read.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private <T> T hedged(Read read, PaystackEndpoint endpoint, Supplier<T> attempt, long deadline) {
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(() -> timed(read, endpoint, attempt), readExecutor);
+        long hedgeDelay = properties.isHedgeEnabled() ? read.hedgeDelayNanos(properties) : Long.MAX_VALUE;
+        if (hedgeDelay >= deadline - System.nanoTime()) {
+            return await(primary, endpoint, deadline);
+        }
+        try {
+            return primary.get(hedgeDelay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!budget.tryAcquire()) {
+                return await(primary, endpoint, deadline);
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted waiting for Paystack " + endpoint.getPath());
+        }
+
+        read.hedges.increment();
+        CompletableFuture<T> hedge = CompletableFuture.supplyAsync(() -> timed(read, endpoint, attempt), readExecutor);
+        // The first success wins; the slower attempt finishes in the background and is dropped
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (CompletableFuture<T> candidate : List.of(primary, hedge)) {
+            candidate.whenComplete((value, failure) -> {
+                if (failure == null) {
+                    first.complete(value);
+                } else if (failed.incrementAndGet() == 2) {
+                    first.completeExceptionally(failure);
+                }
+            });
+        }
+        return await(first, endpoint, deadline);
+    }
+
+    // Thrown as a ResourceAccessException, like a timeout of the call itself
+    private <T> T await(CompletableFuture<T> future, PaystackEndpoint endpoint, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ResourceAccessException("Paystack " + endpoint.getPath() + " read did not finish within "
+                    + properties.getTimeBudget());
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted waiting for Paystack " + endpoint.getPath());
+        }
+    }
+
+    // Nothing reached Paystack, or it asked us to back off, or a gateway in front of it failed
+    private static boolean isRetryable(RuntimeException e) {
+        if (e instanceof PaystackUnavailableException) {
+            return false;
+        }
+        if (e instanceof ResourceAccessException) {
+            return true;
+        }
+        if (e instanceof HttpStatusCodeException status) {
+            int code = status.getStatusCode().value();
+            return code == HttpStatus.TOO_MANY_REQUESTS.value() || code == HttpStatus.BAD_GATEWAY.value()
+                    || code == HttpStatus.SERVICE_UNAVAILABLE.value() || code == HttpStatus.GATEWAY_TIMEOUT.value();
+        }
+        return false;
+    }
+
+    // Full jitter: uniform between zero and the capped exponential step
+    private long backoffNanos(int attempts) {
+        long base = properties.getInitialBackoff().toNanos() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, properties.getMaxBackoff().toNanos());
+        return ThreadLocalRandom.current().nextLong(capped + 1);
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new CompletionException(cause);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readExecutor.shutdownNow();
+    }
+
+    private static final class Read {
+        private final Timer latency;
+        private final Counter retries;
+        private final Counter hedges;
+        private volatile long hedgeDelayNanos = Long.MAX_VALUE;
+        private volatile long hedgeDelayComputedAt = System.nanoTime() - HEDGE_DELAY_REFRESH_NANOS;
+
+        Read(Timer latency, Counter retries, Counter hedges) {
+            this.latency = latency;
+            this.retries = retries;
+            this.hedges = hedges;
+        }
+
+        // The percentile from the timer's decaying histogram, refreshed at most once a second
+        long hedgeDelayNanos(PaystackProperties.ReadRetry properties) {
+            long now = System.nanoTime();
+            if (now - hedgeDelayComputedAt < HEDGE_DELAY_REFRESH_NANOS) {
+                return hedgeDelayNanos;
+            }
+            hedgeDelayComputedAt = now;
+            long delay = Long.MAX_VALUE;
+            if (latency.count() >= HEDGE_MIN_SAMPLES) {
+                for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+                    long observed = (long) percentile.value(TimeUnit.NANOSECONDS);
+                    if (observed > 0) {
+                        delay = Math.max(observed, properties.getMinHedgeDelay().toNanos());
+                    }
+                }
+            }
+            hedgeDelayNanos = delay;
+            return delay;
+        }
+    }
+
+    // Each read adds ratio of a token, up to maxTokens; each retry or hedge spends one
+    private static final class RetryBudget {
+        private final double ratio;
+        private final double maxTokens;
+        private double tokens;
+
+        RetryBudget(double ratio, int maxTokens) {
+            this.ratio = ratio;
+            this.maxTokens = maxTokens;
+            this.tokens = maxTokens;
+        }
+
+        synchronized void onRead() {
+            tokens = Math.min(maxTokens, tokens + ratio);
+        }
+
+        synchronized boolean tryAcquire() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.config.WorkerThreadFactory;
+import com.example.paymentprocessor.constant.WebhookEventStatus;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.model.WebhookEvent;
+import com.example.paymentprocessor.repository.WebhookEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Stores signed Paystack webhook events and applies them on a bounded worker pool
+@Service
+@Slf4j
+public class PaystackWebhookService {
+    private static final String HMAC_ALGORITHM = "HmacSHA512";
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentService paymentService;
+    private final ObjectMapper objectMapper;
+    private final PaystackProperties.Webhook properties;
+    private final SecretKeySpec signingKey;
+    private final ThreadPoolExecutor executor;
+
+    public PaystackWebhookService(WebhookEventRepository webhookEventRepository, PaymentService paymentService,
+                                  ObjectMapper objectMapper, PaystackProperties properties,
+                                  WorkerThreadFactory threadFactory) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentService = paymentService;
+        this.objectMapper = objectMapper;
+        this.properties = properties.getWebhook();
+        // Paystack signs webhooks with the secret key; without one every signature is rejected
+        this.signingKey = properties.getApiKey() == null || properties.getApiKey().isEmpty() ? null :
+                new SecretKeySpec(properties.getApiKey().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.executor = new ThreadPoolExecutor(
+                this.properties.getWorkerThreads(), this.properties.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.properties.getQueueCapacity()),
+                threadFactory.named("paystack-webhook-"));
+    }
+
+    public boolean isValidSignature(byte[] payload, String signature) {
+        if (signature == null || signingKey == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                sign(payload).getBytes(StandardCharsets.US_ASCII),
+                signature.toLowerCase().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return HexFormat.of().formatHex(mac.doFinal(payload));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute webhook signature", e);
+        }
+    }
+
+    // Persists the raw event and hands it to a worker; returns false for a duplicate delivery
+    public boolean ingest(byte[] payload) {
+        String body = new String(payload, StandardCharsets.UTF_8);
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new PaymentException("Malformed webhook payload");
+        }
+        String event = root.path("event").asText();
+        String eventId = event + ":" + root.path("data").path("id").asText();
+
+        Optional<Long> id = webhookEventRepository.insertIfAbsent(eventId, event, body);
+        if (id.isEmpty()) {
+            log.info("Dropping duplicate webhook event {}", eventId);
+            return false;
+        }
+        dispatch(id.get());
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "#{@paystackProperties.webhook.retryAfter.toMillis()}")
+    public void dispatchStale() {
+        LocalDateTime receivedBefore = LocalDateTime.now().minus(properties.getRetryAfter());
+        webhookEventRepository.findIdsToRetry(receivedBefore).forEach(this::dispatch);
+    }
+
+    private void dispatch(Long id) {
+        try {
+            executor.execute(() -> process(id));
+        } catch (RejectedExecutionException e) {
+            // Stays RECEIVED and is picked up by dispatchStale
+            log.warn("Webhook worker queue full, deferring event {}", id);
+        }
+    }
+
+    private void process(Long id) {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(properties.getRetryAfter());
+        if (webhookEventRepository.claim(id, staleBefore) == 0) {
+            return;
+        }
+        WebhookEvent webhookEvent = webhookEventRepository.findById(id).orElseThrow();
+        try {
+            WebhookEventStatus status = apply(webhookEvent);
+            webhookEventRepository.updateStatus(id, status);
+            log.info("Webhook event {} {}", webhookEvent.getEventId(), status);
+        } catch (Exception e) {
+            WebhookEventStatus status = webhookEvent.getAttempts() >= properties.getMaxAttempts() ?
+                    WebhookEventStatus.FAILED : WebhookEventStatus.RECEIVED;
+            webhookEventRepository.updateStatus(id, status);
+            log.error("Error processing webhook event {}, marked {}", webhookEvent.getEventId(), status, e);
+        }
+    }
+
+    private WebhookEventStatus apply(WebhookEvent webhookEvent) throws JsonProcessingException {
+        JsonNode data = objectMapper.readTree(webhookEvent.getPayload()).path("data");
+        String reference = data.path("reference").textValue();
+        if (reference == null) {
+            return WebhookEventStatus.IGNORED;
+        }
+
+        switch (webhookEvent.getEvent()) {
+            case "charge.success" -> paymentService.applyPaystackCharge(reference,
+                    objectMapper.treeToValue(data, PaystackTransaction.class));
+            case "transfer.success" -> paymentService.applyPaystackTransfer(reference, true);
+            case "transfer.failed", "transfer.reversed" -> paymentService.applyPaystackTransfer(reference, false);
+            default -> {
+                return WebhookEventStatus.IGNORED;
+            }
+        }
+        return WebhookEventStatus.PROCESSED;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.paymentprocessor.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Runs at most one call per key at a time: callers arriving while it is in flight wait for it and
+// share its result or exception. Results accepted by the predicate are remembered for the memo
+// window, so a burst of calls right after completion does not start another one.
+class SingleFlight<K, V> {
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, Memo<V>> memo = new ConcurrentHashMap<>();
+    private final long memoNanos;
+    private final Predicate<V> memoizable;
+
+    SingleFlight(Duration memoWindow, Predicate<V> memoizable) {
+        this.memoNanos = memoWindow.toNanos();
+        this.memoizable = memoizable;
+    }
+
+    V execute(K key, Supplier<V> call) {
+        V memoized = memoized(key);
+        if (memoized != null) {
+            return memoized;
+        }
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            // The previous flight may have finished between the memo check and claiming the key
+            V value = memoized(key);
+            if (value == null) {
+                value = call.get();
+                remember(key, value);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private V memoized(K key) {
+        Memo<V> entry = memo.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            memo.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    private void remember(K key, V value) {
+        if (memoNanos <= 0 || value == null || !memoizable.test(value)) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (memo.size() >= SWEEP_THRESHOLD) {
+            memo.values().removeIf(entry -> entry.isExpired(now));
+        }
+        memo.put(key, new Memo<>(value, now + memoNanos));
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Memo<V>(V value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.constant.ExportFormat;
+import com.example.paymentprocessor.data.request.TransactionFilter;
+import com.example.paymentprocessor.model.Transaction;
+import com.example.paymentprocessor.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Streams a user's transactions straight from a database cursor to the response. Each row is
+// detached once written, so memory use does not grow with the size of the export.
+@Service
+@Slf4j
+public class TransactionExportService {
+    private static final String CSV_HEADER =
+            "reference,type,status,amount,email,recipient_code,reason,created_at,updated_at";
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TransactionExportService(TransactionRepository transactionRepository, ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    public void export(String email, TransactionFilter filter, ExportFormat format, OutputStream out) {
+        long rows = readOnlyTemplate.execute(status -> {
+            try (Stream<Transaction> transactions = transactionRepository.streamForExport(email, filter)) {
+                return format == ExportFormat.CSV ?
+                        writeCsv(transactions.iterator(), out) : writeNdjson(transactions.iterator(), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} transactions for {} as {}", rows, email, format);
+    }
+
+    private long writeNdjson(Iterator<Transaction> transactions, OutputStream out) throws IOException {
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            while (transactions.hasNext()) {
+                Transaction transaction = transactions.next();
+                generator.writeStartObject();
+                generator.writeStringField("reference", transaction.getReference());
+                generator.writeStringField("type", transaction.getType().name());
+                generator.writeStringField("status", transaction.getStatus().name());
+                generator.writeNumberField("amount", transaction.getAmount().toNaira());
+                generator.writeStringField("email", transaction.getEmail());
+                generator.writeStringField("recipientCode", transaction.getRecipientCode());
+                generator.writeStringField("reason", transaction.getReason());
+                generator.writeStringField("createdAt", String.valueOf(transaction.getCreatedAt()));
+                generator.writeStringField("updatedAt", transaction.getUpdatedAt() == null ?
+                        null : transaction.getUpdatedAt().toString());
+                generator.writeEndObject();
+                entityManager.detach(transaction);
+                rows++;
+            }
+            if (rows > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<Transaction> transactions, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (transactions.hasNext()) {
+            Transaction transaction = transactions.next();
+            writer.write(csv(transaction.getReference()));
+            writer.write(',');
+            writer.write(transaction.getType().name());
+            writer.write(',');
+            writer.write(transaction.getStatus().name());
+            writer.write(',');
+            writer.write(transaction.getAmount().toString());
+            writer.write(',');
+            writer.write(csv(transaction.getEmail()));
+            writer.write(',');
+            writer.write(csv(transaction.getRecipientCode()));
+            writer.write(',');
+            writer.write(csv(transaction.getReason()));
+            writer.write(',');
+            writer.write(String.valueOf(transaction.getCreatedAt()));
+            writer.write(',');
+            writer.write(transaction.getUpdatedAt() == null ? "" : transaction.getUpdatedAt().toString());
+            writer.write('\n');
+            entityManager.detach(transaction);
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
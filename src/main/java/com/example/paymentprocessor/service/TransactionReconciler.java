@@ -0,0 +1,139 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.ReconciliationProperties;
+import com.example.paymentprocessor.config.WorkerThreadFactory;
+import com.example.paymentprocessor.constant.TransactionStatus;
+import com.example.paymentprocessor.constant.TransactionType;
+import com.example.paymentprocessor.model.Transaction;
+import com.example.paymentprocessor.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Periodically verifies PENDING deposits against Paystack so they settle without a client calling /verify
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "reconciliation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionReconciler {
+    private final TransactionRepository transactionRepository;
+    private final PaymentService paymentService;
+    private final ReconciliationProperties properties;
+    private final ExecutorService executor;
+    private final RateLimiter rateLimiter;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Timer sweepTimer;
+    private final Counter settledCounter;
+    private final Counter failedCounter;
+
+    public TransactionReconciler(TransactionRepository transactionRepository, PaymentService paymentService,
+                                 ReconciliationProperties properties, WorkerThreadFactory threadFactory,
+                                 MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.paymentService = paymentService;
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(properties.getParallelism(),
+                threadFactory.named("reconciler-"));
+        this.rateLimiter = new RateLimiter(properties.getMaxRequestsPerSecond());
+
+        Gauge.builder("reconciliation.backlog", backlog, AtomicLong::get)
+                .description("PENDING deposits at the start of the last sweep")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("reconciliation.sweep.duration").register(meterRegistry);
+        this.settledCounter = Counter.builder("reconciliation.transactions").tag("outcome", "verified")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("reconciliation.transactions").tag("outcome", "error")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "#{@reconciliationProperties.interval.toMillis()}")
+    public void sweep() {
+        sweepTimer.record(this::reconcilePending);
+    }
+
+    private void reconcilePending() {
+        backlog.set(transactionRepository.countByStatusAndType(TransactionStatus.PENDING, TransactionType.DEPOSIT));
+        LocalDateTime createdBefore = LocalDateTime.now().minus(properties.getMinAge());
+        Limit limit = Limit.of(properties.getPageSize());
+
+        long afterId = 0;
+        int processed = 0;
+        List<Transaction> page;
+        do {
+            page = transactionRepository.findByStatusAndTypeAndCreatedAtBeforeAndIdGreaterThanOrderByIdAsc(
+                    TransactionStatus.PENDING, TransactionType.DEPOSIT, createdBefore, afterId, limit);
+            CompletableFuture.allOf(page.stream()
+                    .map(transaction -> CompletableFuture.runAsync(
+                            () -> reconcile(transaction.getReference()), executor))
+                    .toArray(CompletableFuture[]::new))
+                    .join();
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+                processed += page.size();
+            }
+        } while (page.size() == properties.getPageSize());
+
+        if (processed > 0) {
+            log.info("Reconciled {} pending transactions (backlog {})", processed, backlog.get());
+        }
+    }
+
+    private void reconcile(String reference) {
+        try {
+            rateLimiter.acquire();
+            if (paymentService.reconcileTransaction(reference)) {
+                settledCounter.increment();
+            } else {
+                failedCounter.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Error reconciling transaction {}", reference, e);
+            failedCounter.increment();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Spaces calls evenly so the sweep never exceeds the configured rate against Paystack
+    static class RateLimiter {
+        private final long intervalNanos;
+        private long nextSlot = System.nanoTime();
+
+        RateLimiter(int permitsPerSecond) {
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, permitsPerSecond);
+        }
+
+        void acquire() throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(now, nextSlot);
+                nextSlot = slot + intervalNanos;
+                waitNanos = slot - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
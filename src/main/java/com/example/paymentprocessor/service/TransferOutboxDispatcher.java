@@ -0,0 +1,379 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import com.example.paymentprocessor.config.WorkerThreadFactory;
+import com.example.paymentprocessor.constant.TransactionStatus;
+import com.example.paymentprocessor.constant.TransferOutboxStatus;
+import com.example.paymentprocessor.data.paystack.PaystackTransfer;
+import com.example.paymentprocessor.data.request.TransferRequest;
+import com.example.paymentprocessor.exception.PaystackResponseException;
+import com.example.paymentprocessor.exception.PaystackUnavailableException;
+import com.example.paymentprocessor.model.Transaction;
+import com.example.paymentprocessor.model.TransferOutbox;
+import com.example.paymentprocessor.model.WalletLedgerEntry;
+import com.example.paymentprocessor.repository.TransactionRepository;
+import com.example.paymentprocessor.repository.TransferOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Sends withdrawals queued in transfer_outbox to Paystack. Rows are claimed in batches, sent
+// concurrently, and the whole batch is settled in one transaction. Delivery is at least once: a
+// node that dies mid-batch leaves its rows to be claimed again after the lease, and Paystack
+// deduplicates the resend by transfer reference. A node only settles rows it still holds, so a
+// batch that outlived its lease cannot overwrite the outcome of the claim that took over. A withdrawal is only refunded once Paystack has
+// refused it on the first send, or reports no transfer or a failed one for its reference; a send
+// whose fate is unknown stays queued and is verified rather than refunded.
+//
+// Items of bulk withdrawals are claimed separately, up to one bulk request's worth, and sent together
+// through the bulk transfer API on their first attempt. Later attempts go out one at a time, so a
+// resend is handled like any other.
+@Service
+@Slf4j
+public class TransferOutboxDispatcher {
+    private final TransferOutboxRepository outboxRepository;
+    private final TransactionRepository transactionRepository;
+    private final PayStackServiceImpl paystackService;
+    private final WalletService walletService;
+    private final TransactionTemplate transactionTemplate;
+    private final PaystackProperties.TransferOutbox properties;
+    private final int bulkChunkSize;
+    private final Duration callTimeout;
+    // Drains run one at a time; wake-ups that arrive during a drain collapse into one more drain
+    private final ExecutorService drainer;
+    private final ExecutorService workers;
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter unresolvedCounter;
+
+    public TransferOutboxDispatcher(TransferOutboxRepository outboxRepository,
+                                    TransactionRepository transactionRepository,
+                                    PayStackServiceImpl paystackService, WalletService walletService,
+                                    TransactionTemplate transactionTemplate, PaystackProperties properties,
+                                    WorkerThreadFactory threadFactory, MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.transactionRepository = transactionRepository;
+        this.paystackService = paystackService;
+        this.walletService = walletService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties.getTransferOutbox();
+        this.bulkChunkSize = properties.getBulkTransfer().getChunkSize();
+        this.callTimeout = properties.getHttp().getCallTimeout();
+        this.drainer = Executors.newSingleThreadExecutor(threadFactory.named("transfer-outbox-"));
+        this.workers = Executors.newFixedThreadPool(this.properties.getWorkerThreads(),
+                threadFactory.named("paystack-transfer-"));
+
+        this.sentCounter = Counter.builder("paystack.transfer.outbox").tag("outcome", "sent")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("paystack.transfer.outbox").tag("outcome", "retry")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("paystack.transfer.outbox").tag("outcome", "failed")
+                .register(meterRegistry);
+        this.unresolvedCounter = Counter.builder("paystack.transfer.outbox").tag("outcome", "unresolved")
+                .register(meterRegistry);
+    }
+
+    // Called once a withdrawal has committed, so it goes out without waiting for the next poll
+    public void wakeUp() {
+        if (wakeRequested.compareAndSet(false, true)) {
+            drainer.execute(() -> {
+                wakeRequested.set(false);
+                drain();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "#{@paystackProperties.transferOutbox.pollInterval.toMillis()}")
+    public void poll() {
+        wakeUp();
+    }
+
+    private void drain() {
+        try {
+            boolean more;
+            do {
+                boolean moreBulk = claimAndDispatch(bulkChunkSize, true);
+                more = claimAndDispatch(properties.getBatchSize(), false) || moreBulk;
+            } while (more);
+        } catch (RuntimeException e) {
+            // Claimed rows become due again when their lease lapses
+            log.error("Transfer outbox drain failed", e);
+        }
+    }
+
+    // True when the claim was full, so more rows may be due
+    private boolean claimAndDispatch(int limit, boolean bulk) {
+        List<TransferOutbox> batch = outboxRepository.claimDue(limit, leaseFor(limit).toSeconds(), bulk);
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+        return batch.size() == limit;
+    }
+
+    // Long enough for the workers to get through a full claim with every call timing out, plus one
+    // more call for a bulk send or a verify at the tail
+    private Duration leaseFor(int limit) {
+        int rounds = (limit + properties.getWorkerThreads() - 1) / properties.getWorkerThreads() + 1;
+        Duration needed = callTimeout.multipliedBy(rounds);
+        return needed.compareTo(properties.getLease()) > 0 ? needed : properties.getLease();
+    }
+
+    private void dispatch(List<TransferOutbox> batch) {
+        Map<String, Transaction> transactions = transactionRepository
+                .findByReferenceIn(batch.stream().map(TransferOutbox::getReference).toList()).stream()
+                .collect(Collectors.toMap(Transaction::getReference, Function.identity()));
+
+        Map<String, CompletableFuture<Attempt>> attempts = new HashMap<>();
+        List<Transaction> firstBulkSends = new ArrayList<>();
+        for (TransferOutbox row : batch) {
+            Transaction transaction = transactions.get(row.getReference());
+            if (transaction == null) {
+                attempts.put(row.getReference(),
+                        CompletableFuture.completedFuture(new Attempt(Outcome.REJECTED, "Withdrawal not found")));
+            } else if (row.getBatchReference() != null && row.getAttempts() == 1) {
+                firstBulkSends.add(transaction);
+            } else {
+                attempts.put(row.getReference(),
+                        CompletableFuture.supplyAsync(() -> send(transaction, row.getAttempts()), workers));
+            }
+        }
+        if (!firstBulkSends.isEmpty()) {
+            sendBulk(firstBulkSends).forEach((reference, attempt) ->
+                    attempts.put(reference, CompletableFuture.completedFuture(attempt)));
+        }
+        Map<String, Attempt> results = attempts.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().join()));
+        settle(batch, results);
+    }
+
+    // attempts counts this claim; past maxAttempts the transfer is only looked up, never resent
+    private Attempt send(Transaction transaction, int attempts) {
+        if (attempts > properties.getMaxAttempts()) {
+            return verify(transaction.getReference());
+        }
+        try {
+            paystackService.initiateTransfer(transferRequest(transaction));
+            return new Attempt(Outcome.ACCEPTED, null);
+        } catch (PaystackUnavailableException e) {
+            return new Attempt(Outcome.DEFERRED, e.getMessage(), e.getRetryAfter());
+        } catch (PaystackResponseException e) {
+            // A first send that Paystack refused created nothing. On a resend the refusal may be for
+            // the duplicate reference of a transfer an earlier attempt created, so look it up.
+            if (e.isRefused() && attempts == 1) {
+                return new Attempt(Outcome.REJECTED, e.getMessage());
+            }
+            if (e.isRefused()) {
+                return verify(transaction.getReference());
+            }
+            log.warn("Transfer {} attempt failed: {}", transaction.getReference(), e.getMessage());
+            return new Attempt(Outcome.RETRY, e.getMessage());
+        } catch (RuntimeException e) {
+            // A timeout or 5xx leaves the transfer's fate unknown. After the last send the row is
+            // claimed once more, a backoff later, only to look the transfer up.
+            log.warn("Transfer {} attempt failed: {}", transaction.getReference(), e.getMessage());
+            return new Attempt(Outcome.RETRY, e.getMessage());
+        }
+    }
+
+    // First sends only, so an item Paystack reports as failed was never paid out. Items it leaves out
+    // of the response are retried one at a time.
+    private Map<String, Attempt> sendBulk(List<Transaction> transactions) {
+        Attempt whole;
+        try {
+            List<PaystackTransfer> transfers = paystackService.initiateBulkTransfer(
+                    transactions.stream().map(TransferOutboxDispatcher::transferRequest).toList()).getData();
+            Map<String, PaystackTransfer> byReference = (transfers == null ? List.<PaystackTransfer>of() : transfers)
+                    .stream()
+                    .filter(transfer -> transfer.reference() != null)
+                    .collect(Collectors.toMap(PaystackTransfer::reference, Function.identity(), (first, second) -> first));
+            Map<String, Attempt> attempts = new HashMap<>();
+            for (Transaction transaction : transactions) {
+                PaystackTransfer transfer = byReference.get(transaction.getReference());
+                Attempt attempt;
+                if (transfer == null) {
+                    attempt = new Attempt(Outcome.RETRY, "Missing from the bulk transfer response");
+                } else if ("failed".equals(transfer.status())) {
+                    attempt = new Attempt(Outcome.REJECTED, "Paystack failed the transfer");
+                } else {
+                    attempt = new Attempt(Outcome.ACCEPTED, null);
+                }
+                attempts.put(transaction.getReference(), attempt);
+            }
+            return attempts;
+        } catch (PaystackUnavailableException e) {
+            whole = new Attempt(Outcome.DEFERRED, e.getMessage(), e.getRetryAfter());
+        } catch (PaystackResponseException e) {
+            log.warn("Bulk transfer of {} items failed: {}", transactions.size(), e.getMessage());
+            whole = new Attempt(e.isRefused() ? Outcome.REJECTED : Outcome.RETRY, e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Bulk transfer of {} items failed: {}", transactions.size(), e.getMessage());
+            whole = new Attempt(Outcome.RETRY, e.getMessage());
+        }
+        return transactions.stream().collect(Collectors.toMap(Transaction::getReference, transaction -> whole));
+    }
+
+    private static TransferRequest transferRequest(Transaction transaction) {
+        return TransferRequest.builder()
+                .amount(transaction.getAmount())
+                .recipient(transaction.getRecipientCode())
+                .reason(transaction.getReason())
+                .reference(transaction.getReference())
+                .email(transaction.getEmail())
+                .build();
+    }
+
+    private Attempt verify(String reference) {
+        try {
+            PaystackTransfer transfer = paystackService.verifyTransfer(reference).getData();
+            return switch (transfer.status()) {
+                case "success" -> new Attempt(Outcome.ACCEPTED, null);
+                case "failed", "reversed" -> new Attempt(Outcome.REJECTED, "Paystack reports the transfer " +
+                        transfer.status());
+                default -> new Attempt(Outcome.CREATED, null);
+            };
+        } catch (PaystackUnavailableException e) {
+            return new Attempt(Outcome.DEFERRED, e.getMessage(), e.getRetryAfter());
+        } catch (PaystackResponseException e) {
+            if (e.getStatus() == HttpStatus.NOT_FOUND.value()) {
+                return new Attempt(Outcome.REJECTED, "Paystack has no transfer with this reference");
+            }
+            return new Attempt(Outcome.UNRESOLVED, e.getMessage());
+        } catch (RuntimeException e) {
+            return new Attempt(Outcome.UNRESOLVED, e.getMessage());
+        }
+    }
+
+    // Webhooks may have settled some withdrawals already; only PENDING transactions are touched.
+    // A row is only settled while it is still PROCESSING with the attempts value of this claim:
+    // attempts only rises while a row is PROCESSING, and a deferred claim gives its attempt back only
+    // as it releases the row, so the value identifies the claim. Other rows were taken over once the
+    // lease lapsed, and this result is dropped in favour of the newer claim's.
+    private void settle(List<TransferOutbox> batch, Map<String, Attempt> results) {
+        Map<Long, Integer> claimed = batch.stream()
+                .collect(Collectors.toMap(TransferOutbox::getId, TransferOutbox::getAttempts));
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Transaction> transactions = transactionRepository
+                    .findForUpdateByReferenceInOrderByIdAsc(results.keySet()).stream()
+                    .collect(Collectors.toMap(Transaction::getReference, Function.identity()));
+            List<TransferOutbox> rows = new ArrayList<>();
+            for (TransferOutbox row : outboxRepository.findForUpdateByIdInOrderByIdAsc(claimed.keySet())) {
+                if (row.getStatus() == TransferOutboxStatus.PROCESSING
+                        && row.getAttempts().equals(claimed.get(row.getId()))) {
+                    rows.add(row);
+                } else {
+                    log.warn("Withdrawal {} was claimed again before attempt {} settled; dropping its result",
+                            row.getReference(), claimed.get(row.getId()));
+                }
+            }
+            List<WalletLedgerEntry> refunds = new ArrayList<>();
+
+            for (TransferOutbox row : rows) {
+                Attempt attempt = results.get(row.getReference());
+                Transaction transaction = transactions.get(row.getReference());
+                boolean pending = transaction != null && transaction.getStatus() == TransactionStatus.PENDING;
+                row.setLastError(truncate(attempt.error()));
+
+                if (attempt.outcome() == Outcome.ACCEPTED || attempt.outcome() == Outcome.CREATED) {
+                    row.setStatus(TransferOutboxStatus.SENT);
+                    if (pending && attempt.outcome() == Outcome.ACCEPTED) {
+                        transaction.setStatus(TransactionStatus.SUCCESS);
+                    }
+                    sentCounter.increment();
+                } else if (attempt.outcome() == Outcome.DEFERRED) {
+                    // Never sent, so the claim does not use up one of the row's attempts
+                    row.setStatus(TransferOutboxStatus.PENDING);
+                    row.setAttempts(row.getAttempts() - 1);
+                    row.setNextAttemptAt(LocalDateTime.now().plus(attempt.retryAfter()));
+                    retriedCounter.increment();
+                } else if (attempt.outcome() == Outcome.RETRY) {
+                    row.setStatus(TransferOutboxStatus.PENDING);
+                    row.setNextAttemptAt(LocalDateTime.now().plus(backoff(row.getAttempts())));
+                    retriedCounter.increment();
+                } else if (attempt.outcome() == Outcome.UNRESOLVED) {
+                    // The wallet stays debited until Paystack can say what happened to the transfer
+                    row.setStatus(TransferOutboxStatus.PENDING);
+                    row.setNextAttemptAt(LocalDateTime.now().plus(properties.getMaxBackoff()));
+                    unresolvedCounter.increment();
+                    log.warn("Withdrawal {} could not be verified after {} attempts: {}",
+                            row.getReference(), row.getAttempts(), attempt.error());
+                } else {
+                    row.setStatus(TransferOutboxStatus.FAILED);
+                    if (pending) {
+                        transaction.setStatus(TransactionStatus.FAILED);
+                        refunds.add(WalletLedgerEntry.builder()
+                                .email(transaction.getEmail())
+                                .amount(transaction.getAmount())
+                                .reference(transaction.getReference())
+                                .build());
+                    }
+                    failedCounter.increment();
+                    log.warn("Withdrawal {} failed on attempt {}: {}",
+                            row.getReference(), row.getAttempts(), attempt.error());
+                }
+            }
+            outboxRepository.saveAll(rows);
+            transactionRepository.saveAll(transactions.values());
+            if (!refunds.isEmpty()) {
+                walletService.creditWallets(refunds);
+            }
+        });
+    }
+
+    // Exponential with jitter, so withdrawals that failed together during an outage do not retry together
+    private Duration backoff(int attempts) {
+        long base = properties.getInitialBackoff().toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, properties.getMaxBackoff().toMillis());
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 1000 ? error : error.substring(0, 1000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private enum Outcome {
+        ACCEPTED,
+        // Paystack has the transfer but has not finished it; its webhook settles the withdrawal
+        CREATED,
+        RETRY,
+        // Rejected by PaystackGuard before it was sent
+        DEFERRED,
+        // Paystack refused it or reports no transfer, or a failed one; the wallet is refunded
+        REJECTED,
+        // Sends are used up and Paystack could not be asked about the transfer; verified again later
+        UNRESOLVED
+    }
+
+    private record Attempt(Outcome outcome, String error, Duration retryAfter) {
+        Attempt(Outcome outcome, String error) {
+            this(outcome, error, null);
+        }
+    }
+}
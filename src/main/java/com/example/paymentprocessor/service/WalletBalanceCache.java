@@ -0,0 +1,114 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.WalletProperties;
+import com.example.paymentprocessor.model.Money;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+// Balances by email for the read path. Debits, which hold the shard lock and know the new balance,
+// write through; credits only invalidate. Either lands once the surrounding transaction commits.
+// Other nodes' writes are not seen here, so entries also expire after wallet.balance-cache.max-staleness.
+@Component
+public class WalletBalanceCache {
+    private static final int WRITE_STRIPES = 4096;
+
+    private final Cache<String, Money> cache;
+    // Writes applied per stripe of emails. A balance read is only cached if no write to its stripe
+    // was applied since before the read began; sharing a stripe at worst leaves a read uncached.
+    private final AtomicLongArray writes = new AtomicLongArray(WRITE_STRIPES);
+
+    public WalletBalanceCache(WalletProperties properties, MeterRegistry meterRegistry) {
+        WalletProperties.BalanceCache config = properties.getBalanceCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getMaxStaleness())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "wallet.balance");
+    }
+
+    // Loads outside the cache: Caffeine runs a get(key, loader) inside ConcurrentHashMap.compute,
+    // which would pin a virtual thread to its carrier for the whole balance query. Concurrent misses
+    // for one email may each query.
+    public Money get(String email, Function<String, Money> loader) {
+        Money balance = getIfPresent(email);
+        if (balance != null) {
+            return balance;
+        }
+        long stamp = stamp(email);
+        return putLoaded(email, stamp, loader.apply(email));
+    }
+
+    public Money getIfPresent(String email) {
+        return cache.getIfPresent(email);
+    }
+
+    // Taken before a balance query starts and handed back to putLoaded with its result
+    public long stamp(String email) {
+        return writes.get(stripe(email));
+    }
+
+    // Caches a balance read after a miss and returns the balance to serve. A write applied since the
+    // stamp may have committed after the query read the ledger, so the read is then served uncached.
+    // Writers count the write before touching the entry, and compute holds the entry's lock while
+    // checking, so a write is either seen here or removes what this puts.
+    public Money putLoaded(String email, long stamp, Money balance) {
+        Money served = cache.asMap().compute(email, (key, existing) -> existing != null ? existing :
+                writes.get(stripe(email)) == stamp ? balance : null);
+        return served != null ? served : balance;
+    }
+
+    // Drops the entry once the transaction commits, and again if it rolls back
+    public void invalidate(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(email);
+            }
+        });
+    }
+
+    public void put(String email, Money balance) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writes.incrementAndGet(stripe(email));
+            cache.put(email, balance);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                writes.incrementAndGet(stripe(email));
+                cache.put(email, balance);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    evict(email);
+                }
+            }
+        });
+    }
+
+    private void evict(String email) {
+        writes.incrementAndGet(stripe(email));
+        cache.invalidate(email);
+    }
+
+    private static int stripe(String email) {
+        int hash = email.hashCode();
+        return (hash ^ (hash >>> 16)) & (WRITE_STRIPES - 1);
+    }
+}
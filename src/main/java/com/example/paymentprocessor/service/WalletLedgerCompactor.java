@@ -0,0 +1,60 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.repository.WalletLedgerEntryRepository;
+import com.example.paymentprocessor.repository.WalletRepository;
+import com.example.paymentprocessor.repository.WalletShardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Rolls ledger entries into the wallet and shard snapshots. Each wallet is compacted under
+// lockForCompaction, which waits for its in-flight ledger writes, so no entry at or below the new
+// snapshot_entry_id can commit afterwards. An entry still uncommitted when the wallets are listed
+// is not lost: it stays above its wallet's snapshot_entry_id and is counted until a later run.
+@Component
+@Slf4j
+public class WalletLedgerCompactor {
+    private final WalletLedgerEntryRepository ledgerRepository;
+    private final WalletRepository walletRepository;
+    private final WalletShardRepository walletShardRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Highest entry id already rolled into snapshots; only touched by the scheduler thread
+    private Long compactedUpToId;
+
+    public WalletLedgerCompactor(WalletLedgerEntryRepository ledgerRepository, WalletRepository walletRepository,
+                                 WalletShardRepository walletShardRepository, TransactionTemplate transactionTemplate) {
+        this.ledgerRepository = ledgerRepository;
+        this.walletRepository = walletRepository;
+        this.walletShardRepository = walletShardRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "#{@walletProperties.ledger.compactionInterval.toMillis()}")
+    public void compact() {
+        if (compactedUpToId == null) {
+            compactedUpToId = walletRepository.findMaxSnapshotEntryId();
+        }
+
+        Long upToId = ledgerRepository.findMaxId();
+        if (upToId == null || upToId <= compactedUpToId) {
+            return;
+        }
+
+        List<String> emails = ledgerRepository.findEmailsWithEntriesBetween(compactedUpToId, upToId);
+        for (String email : emails) {
+            transactionTemplate.executeWithoutResult(status -> {
+                ledgerRepository.lockForCompaction(email);
+                walletRepository.insertIfAbsent(email);
+                walletRepository.findForUpdateByEmail(email);
+                walletShardRepository.compactShards(email, upToId);
+                walletRepository.compactSnapshot(email, upToId);
+            });
+        }
+        compactedUpToId = upToId;
+        log.info("Compacted ledger entries up to {} for {} wallets", upToId, emails.size());
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.paymentprocessor.service;
 
+import com.example.paymentprocessor.config.WalletProperties;
 import com.example.paymentprocessor.exception.InsufficientFundsException;
-import com.example.paymentprocessor.model.Wallet;
+import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.model.Money;
+import com.example.paymentprocessor.model.WalletLedgerEntry;
+import com.example.paymentprocessor.repository.WalletLedgerEntryRepository;
 import com.example.paymentprocessor.repository.WalletRepository;
 import org.springframework.stereotype.Service;
 
@@ -10,56 +14,189 @@ import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 @Service
 @Slf4j
 @Transactional
 public class WalletService {
+    private final WalletLedgerEntryRepository ledgerRepository;
     private final WalletRepository walletRepository;
+    private final HotWalletRegistry hotWalletRegistry;
+    private final WalletProperties properties;
+    private final WalletBalanceCache balanceCache;
 
-    public WalletService(WalletRepository walletRepository) {
+    public WalletService(WalletLedgerEntryRepository ledgerRepository, WalletRepository walletRepository,
+                         HotWalletRegistry hotWalletRegistry, WalletProperties properties,
+                         WalletBalanceCache balanceCache) {
+        this.ledgerRepository = ledgerRepository;
         this.walletRepository = walletRepository;
+        this.hotWalletRegistry = hotWalletRegistry;
+        this.properties = properties;
+        this.balanceCache = balanceCache;
     }
 
-    public Wallet getOrCreateWallet(String email) {
-        log.info("Getting or creating wallet for email: {}", email);
-        return walletRepository.findByEmail(email)
-                .orElseGet(() -> {
-                    log.info("Creating new wallet for email: {}", email);
-                    Wallet newWallet = Wallet.builder()
-                            .email(email)
-                            .balance(BigDecimal.ZERO)
-                            .build();
-                    Wallet savedWallet = walletRepository.save(newWallet);
-                    log.info("New wallet created with ID: {}", savedWallet.getId());
-                    return savedWallet;
-                });
+    public void creditWallet(String email, Money amount, String reference) {
+        log.info("Attempting to credit wallet for email: {} with amount: {}", email, amount);
+        ledgerRepository.lockForWrite(email);
+        ledgerRepository.save(WalletLedgerEntry.builder()
+                .email(email)
+                .shard(creditShard(email))
+                .amount(amount)
+                .reference(reference)
+                .build());
+        // A credit is only an insert; the next read after commit loads the balance
+        balanceCache.invalidate(email);
+        log.info("Wallet credited successfully for email: {}", email);
     }
 
-    public void creditWallet(String email, BigDecimal amount) {
-        log.info("Attempting to credit wallet for email: {} with amount: {}", email, amount);
-        Wallet wallet = getOrCreateWallet(email);
-        BigDecimal currentBalance = wallet.getBalance();
-        BigDecimal newBalance = currentBalance.add(amount);
-        log.info("Updating balance from {} to {}", currentBalance, newBalance);
-        wallet.setBalance(newBalance);
-        Wallet savedWallet = walletRepository.save(wallet);
-        log.info("Wallet credited successfully. New balance: {}", savedWallet.getBalance());
+    // Many credits in one go: the entries are inserted as JDBC batches instead of a flush per entry
+    public void creditWallets(List<WalletLedgerEntry> credits) {
+        credits.stream()
+                .map(WalletLedgerEntry::getEmail)
+                .distinct()
+                .sorted()
+                .forEach(ledgerRepository::lockForWrite);
+        for (WalletLedgerEntry credit : credits) {
+            credit.setShard(creditShard(credit.getEmail()));
+        }
+        ledgerRepository.saveAll(credits);
+        credits.stream()
+                .map(WalletLedgerEntry::getEmail)
+                .distinct()
+                .forEach(balanceCache::invalidate);
+        log.info("Credited {} wallet ledger entries", credits.size());
+    }
+
+    private int creditShard(String email) {
+        int shardCount = hotWalletRegistry.shardCount(email);
+        return shardCount > 1 ? ThreadLocalRandom.current().nextInt(shardCount) : 0;
+    }
+
+    public Money debitWallet(String email, Money amount, String reference) {
+        Debit debit = tryDebitWallet(email, amount, reference);
+        if (debit.busy()) {
+            throw new PaymentException("Wallet is busy with other debits; please retry");
+        }
+        return debit.balance().orElseThrow(() -> insufficientFunds(email));
+    }
+
+    // Nothing is written when the debit does not go through and, unlike debitWallet, the caller's
+    // transaction is not marked rollback-only either way
+    public Debit tryDebitWallet(String email, Money amount, String reference) {
+        ledgerRepository.lockForWrite(email);
+        int highestShard = ledgerRepository.findHighestShard(email);
+        Debit debit;
+        if (highestShard == 0) {
+            // Debits on one shard serialize on an advisory lock; credits are plain inserts and never wait on it
+            ledgerRepository.lockShard(email, 0);
+            debit = ledgerRepository.debitShard(email, 0, amount.toNaira(), reference, LocalDateTime.now())
+                    .map(balance -> Debit.debited(Money.ofNaira(balance)))
+                    .orElse(Debit.INSUFFICIENT_FUNDS);
+        } else {
+            debit = debitAcrossShards(email, amount, reference, highestShard);
+        }
+        debit.balance().ifPresent(balance -> {
+            balanceCache.put(email, balance);
+            log.info("Debited wallet for {} with {}", email, amount);
+        });
+        return debit;
+    }
+
+    // Starts at a random shard, so concurrent debits spread over the shards instead of all queuing
+    // on shard 0, and locks shards upwards from there until the locked ones cover the amount. A debit
+    // only ever waits for a shard above every shard it holds, so concurrent debits cannot deadlock.
+    // Shards below the start are taken last and only if free at that moment; when one is busy and
+    // the rest fall short, the debit comes back busy rather than as insufficient funds.
+    private Debit debitAcrossShards(String email, Money amount, String reference, int highestShard) {
+        int start = ThreadLocalRandom.current().nextInt(highestShard + 1);
+        Map<Integer, Money> locked = new TreeMap<>();
+        Money covered = Money.ZERO;
+        for (int shard = start; shard <= highestShard && covered.isLessThan(amount); shard++) {
+            ledgerRepository.lockShard(email, shard);
+            covered = covered.plus(lockedShardBalance(email, shard, locked));
+        }
+        boolean skippedBusyShard = false;
+        for (int shard = 0; shard < start && covered.isLessThan(amount); shard++) {
+            if (!ledgerRepository.tryLockShard(email, shard)) {
+                skippedBusyShard = true;
+                continue;
+            }
+            covered = covered.plus(lockedShardBalance(email, shard, locked));
+        }
+        if (covered.isLessThan(amount)) {
+            return skippedBusyShard ? Debit.BUSY : Debit.INSUFFICIENT_FUNDS;
+        }
+
+        List<WalletLedgerEntry> entries = new ArrayList<>();
+        Money remaining = amount;
+        for (Map.Entry<Integer, Money> shard : locked.entrySet()) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            if (shard.getValue().signum() <= 0) {
+                continue;
+            }
+            Money drawn = shard.getValue().min(remaining);
+            entries.add(WalletLedgerEntry.builder()
+                    .email(email)
+                    .shard(shard.getKey())
+                    .amount(drawn.negate())
+                    .reference(reference)
+                    .build());
+            remaining = remaining.minus(drawn);
+        }
+        ledgerRepository.saveAll(entries);
+        return Debit.debited(currentBalance(email));
+    }
+
+    // Records the balance of a shard this debit now holds; returns the part it can draw on
+    private Money lockedShardBalance(String email, int shard, Map<Integer, Money> locked) {
+        Money shardBalance = Money.ofNaira(ledgerRepository.shardBalance(email, shard));
+        locked.put(shard, shardBalance);
+        return shardBalance.signum() > 0 ? shardBalance : Money.ZERO;
+    }
+
+    public void setShardCount(String email, int shardCount) {
+        if (shardCount < 1 || shardCount > properties.getSharding().getMaxShards()) {
+            throw new PaymentException("Shard count must be between 1 and " + properties.getSharding().getMaxShards());
+        }
+        walletRepository.insertIfAbsent(email);
+        walletRepository.updateShardCount(email, shardCount);
+        hotWalletRegistry.update(email, shardCount);
+        log.info("Set shard count for {} to {}", email, shardCount);
+    }
+
+    // Read path for balance checks: no transaction, never writes, and may lag other nodes by the
+    // cache's staleness bound. Debits check funds against currentBalance, not this.
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public Money getBalance(String email) {
+        return balanceCache.get(email, this::currentBalance);
     }
 
-    public void debitWallet(String email, BigDecimal amount) {
-        Wallet wallet = getOrCreateWallet(email);
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds. Available balance: " + wallet.getBalance());
+    private Money currentBalance(String email) {
+        return Money.ofNaira(ledgerRepository.currentBalance(email));
+    }
+
+    // Balance is empty unless the debit went through; busy means a shard the debit needed was held
+    // by another debit, so the wallet may well cover the amount on a retry
+    public record Debit(Optional<Money> balance, boolean busy) {
+        static final Debit INSUFFICIENT_FUNDS = new Debit(Optional.empty(), false);
+        static final Debit BUSY = new Debit(Optional.empty(), true);
+
+        static Debit debited(Money balance) {
+            return new Debit(Optional.of(balance), false);
         }
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        walletRepository.save(wallet);
-        log.info("Debited wallet for {} with {}", email, amount);
     }
 
-    public BigDecimal getBalance(String email) {
-        return getOrCreateWallet(email).getBalance();
+    private InsufficientFundsException insufficientFunds(String email) {
+        return new InsufficientFundsException("Insufficient funds. Available balance: " + currentBalance(email));
     }
 }
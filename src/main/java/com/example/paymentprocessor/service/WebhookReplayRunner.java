@@ -0,0 +1,45 @@
+package com.example.paymentprocessor.service;
+
+import com.example.paymentprocessor.config.PaystackProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Feeds captured webhook payloads (*.json) through the ingestion pipeline at startup, without
+// Paystack or the network, e.g. --paystack.webhook.replay-dir=./captured-webhooks
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "paystack.webhook", name = "replay-dir")
+public class WebhookReplayRunner implements ApplicationRunner {
+    private final PaystackWebhookService webhookService;
+    private final String replayDir;
+
+    public WebhookReplayRunner(PaystackWebhookService webhookService, PaystackProperties properties) {
+        this.webhookService = webhookService;
+        this.replayDir = properties.getWebhook().getReplayDir();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(Path.of(replayDir))) {
+            files = paths.filter(path -> path.toString().endsWith(".json")).sorted().toList();
+        }
+
+        int ingested = 0;
+        for (Path file : files) {
+            if (webhookService.ingest(Files.readAllBytes(file))) {
+                ingested++;
+            }
+        }
+        log.info("Replayed {} of {} webhook payloads from {}", ingested, files.size(), replayDir);
+    }
+}
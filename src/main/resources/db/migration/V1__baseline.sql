@@ -0,0 +1,69 @@
+-- Schema as previously generated by hibernate.ddl-auto=update. Databases created that way are
+-- baselined at version 0 (spring.flyway.baseline-on-migrate) and still run this script, so every
+-- statement must also work on their tables: CREATE ... IF NOT EXISTS, and ADD COLUMN IF NOT EXISTS
+-- for the columns that releases before Flyway did not have.
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    reference       varchar(255)   NOT NULL,
+    type            varchar(255)   NOT NULL CHECK (type IN ('DEPOSIT', 'WITHDRAWAL')),
+    status          varchar(255)   NOT NULL CHECK (status IN ('PENDING', 'SUCCESS', 'FAILED')),
+    amount          numeric(38, 2) NOT NULL,
+    email           varchar(255)   NOT NULL,
+    recipient_code  varchar(255),
+    reason          varchar(255),
+    batch_reference varchar(255),
+    created_at      timestamp(6)   NOT NULL,
+    updated_at      timestamp(6)
+);
+
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS batch_reference varchar(255);
+
+CREATE TABLE IF NOT EXISTS wallets (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email             varchar(255)   NOT NULL,
+    balance           numeric(38, 2) NOT NULL,
+    snapshot_entry_id bigint         NOT NULL DEFAULT 0,
+    shard_count       integer        NOT NULL DEFAULT 1,
+    created_at        timestamp(6)   NOT NULL,
+    updated_at        timestamp(6),
+    CONSTRAINT uk_wallets_email UNIQUE (email)
+);
+
+-- Wallets from before the ledger keep their balance as the snapshot, with no entries after it
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS snapshot_entry_id bigint NOT NULL DEFAULT 0;
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS shard_count integer NOT NULL DEFAULT 1;
+
+CREATE TABLE IF NOT EXISTS wallet_ledger_entries (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email      varchar(255)   NOT NULL,
+    shard      integer        NOT NULL DEFAULT 0,
+    amount     numeric(38, 2) NOT NULL,
+    reference  varchar(255),
+    created_at timestamp(6)   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_wallet_ledger_entries_email_id ON wallet_ledger_entries (email, id);
+
+CREATE TABLE IF NOT EXISTS wallet_shards (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email      varchar(255)   NOT NULL,
+    shard      integer        NOT NULL,
+    balance    numeric(38, 2) NOT NULL,
+    created_at timestamp(6)   NOT NULL,
+    updated_at timestamp(6),
+    CONSTRAINT uk_wallet_shards_email_shard UNIQUE (email, shard)
+);
+
+CREATE TABLE IF NOT EXISTS webhook_events (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_id   varchar(255) NOT NULL,
+    event      varchar(255) NOT NULL,
+    payload    text         NOT NULL,
+    status     varchar(255) NOT NULL
+        CHECK (status IN ('RECEIVED', 'PROCESSING', 'PROCESSED', 'IGNORED', 'FAILED')),
+    attempts   integer      NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6),
+    CONSTRAINT uk_webhook_events_event_id UNIQUE (event_id)
+);
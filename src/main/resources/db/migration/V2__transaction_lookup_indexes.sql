@@ -0,0 +1,19 @@
+-- Built CONCURRENTLY so existing tables stay writable; Flyway runs this script outside a transaction.
+-- The unique index fails if duplicate references already exist; resolve those first.
+
+-- findByReference, findForUpdateByReference and webhook/verify lookups
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_transactions_reference
+    ON transactions (reference);
+
+-- Transaction history and export: equality on email, range and order on created_at
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_email_created_at
+    ON transactions (email, created_at);
+
+-- Reconciliation sweeps and findByStatus
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_status_created_at
+    ON transactions (status, created_at);
+
+-- Bulk withdrawal status lookups
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_batch_reference
+    ON transactions (batch_reference)
+    WHERE batch_reference IS NOT NULL;
@@ -0,0 +1,21 @@
+-- IDENTITY columns stop Hibernate from batching inserts, so these tables move to sequences that
+-- Hibernate allocates from in blocks of 50 (the pooled optimizer; allocationSize on the entities).
+-- Native INSERTs that leave id out take nextval through the column default. Every value the
+-- sequence hands out is 50 apart, and Hibernate only uses the 50 ids ending at a value it drew,
+-- so the two never collide. Each sequence starts 50 past the current maximum id so the first
+-- pooled block is above every existing row.
+
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE transactions_seq INCREMENT BY 50 OWNED BY transactions.id;
+SELECT setval('transactions_seq', COALESCE(MAX(id), 0) + 50, false) FROM transactions;
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT nextval('transactions_seq');
+
+ALTER TABLE wallets ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE wallets_seq INCREMENT BY 50 OWNED BY wallets.id;
+SELECT setval('wallets_seq', COALESCE(MAX(id), 0) + 50, false) FROM wallets;
+ALTER TABLE wallets ALTER COLUMN id SET DEFAULT nextval('wallets_seq');
+
+ALTER TABLE wallet_ledger_entries ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE wallet_ledger_entries_seq INCREMENT BY 50 OWNED BY wallet_ledger_entries.id;
+SELECT setval('wallet_ledger_entries_seq', COALESCE(MAX(id), 0) + 50, false) FROM wallet_ledger_entries;
+ALTER TABLE wallet_ledger_entries ALTER COLUMN id SET DEFAULT nextval('wallet_ledger_entries_seq');
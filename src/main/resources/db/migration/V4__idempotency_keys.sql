@@ -0,0 +1,16 @@
+-- First response for each Idempotency-Key, replayed to client retries until expires_at
+CREATE TABLE idempotency_keys (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idempotency_key varchar(255) NOT NULL,
+    request_path    varchar(255) NOT NULL,
+    request_hash    varchar(64)  NOT NULL,
+    status          varchar(255) NOT NULL
+        CHECK (status IN ('IN_PROGRESS', 'COMPLETED')),
+    response_status integer,
+    response_body   bytea,
+    created_at      timestamp(6) NOT NULL,
+    expires_at      timestamp(6) NOT NULL,
+    CONSTRAINT uk_idempotency_keys_key_path UNIQUE (idempotency_key, request_path)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,17 @@
+-- Withdrawals waiting to be sent to Paystack; written in the same transaction as the debit
+CREATE TABLE transfer_outbox (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    reference       varchar(255)  NOT NULL,
+    status          varchar(255)  NOT NULL
+        CHECK (status IN ('PENDING', 'PROCESSING', 'SENT', 'FAILED')),
+    attempts        integer       NOT NULL,
+    next_attempt_at timestamp(6)  NOT NULL,
+    last_error      varchar(1000),
+    created_at      timestamp(6)  NOT NULL,
+    updated_at      timestamp(6),
+    CONSTRAINT uk_transfer_outbox_reference UNIQUE (reference)
+);
+
+-- Only rows still to be sent are scanned by the dispatcher
+CREATE INDEX idx_transfer_outbox_due ON transfer_outbox (next_attempt_at)
+    WHERE status IN ('PENDING', 'PROCESSING');
@@ -0,0 +1,6 @@
+-- Ledger entry ids must follow insert order: WalletLedgerCompactor rolls entries into snapshots up
+-- to the highest settled id, and BALANCE_SQL only adds entries above a wallet's snapshot_entry_id.
+-- With blocks of 50 cached per node, a credit could take an id below one already compacted and
+-- never be counted. Entries are inserted one row at a time anyway, so each takes the next value.
+-- Every id handed out so far is at or below the sequence's last value, so nothing is reused.
+ALTER SEQUENCE wallet_ledger_entries_seq INCREMENT BY 1;
@@ -0,0 +1,14 @@
+-- Bulk withdrawals are queued in transfer_outbox like single ones; rows with a batch reference are
+-- sent through Paystack's bulk transfer API on their first attempt
+ALTER TABLE transfer_outbox ADD COLUMN batch_reference varchar(255);
+
+-- Bulk withdrawals left PENDING by a restart before this version were debited but may or may not
+-- have reached Paystack. They are queued as already attempted, so they are sent one at a time and a
+-- refused resend is checked against Paystack instead of being refunded.
+INSERT INTO transfer_outbox (reference, batch_reference, status, attempts, next_attempt_at, created_at, updated_at)
+SELECT t.reference, t.batch_reference, 'PENDING', 1, now(), now(), now()
+FROM transactions t
+WHERE t.batch_reference IS NOT NULL
+  AND t.type = 'WITHDRAWAL'
+  AND t.status = 'PENDING'
+  AND NOT EXISTS (SELECT 1 FROM transfer_outbox o WHERE o.reference = t.reference);
@@ -0,0 +1,204 @@
+package com.example.paymentprocessor.reactive;
+
+import com.example.paymentprocessor.config.IdempotencyProperties;
+import com.example.paymentprocessor.data.response.ApiResponse;
+import com.example.paymentprocessor.exception.IdempotencyKeyConflictException;
+import com.example.paymentprocessor.exception.PaymentException;
+import com.example.paymentprocessor.filter.IdempotencyFilter;
+import com.example.paymentprocessor.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// IdempotencyFilter for WebFlux, sharing its paths, request hash and IdempotencyService, so a key
+// used on a servlet node is honoured by a reactive one. Claiming the key, which may wait for another
+// request, and storing the response block, so they run on a scheduler of their own. The handler is
+// composed in between rather than awaited there, so it never queues on a pool a caller is holding.
+@Component
+@Slf4j
+public class ReactiveIdempotencyFilter implements WebFilter {
+    private final IdempotencyService idempotencyService;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Scheduler scheduler = Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+            Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "idempotency");
+
+    public ReactiveIdempotencyFilter(IdempotencyService idempotencyService, IdempotencyProperties properties,
+                                     ObjectMapper objectMapper) {
+        this.idempotencyService = idempotencyService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String key = request.getHeaders().getFirst(IdempotencyFilter.HEADER);
+        String path = request.getPath().value();
+        // Requests without the header behave as before
+        if (key == null || !IdempotencyFilter.appliesTo(request.getMethod().name(), path)) {
+            return chain.filter(exchange);
+        }
+        if (key.isBlank() || key.length() > IdempotencyFilter.MAX_KEY_LENGTH) {
+            return writeError(exchange.getResponse(), HttpStatus.BAD_REQUEST,
+                    IdempotencyFilter.HEADER + " must be between 1 and " + IdempotencyFilter.MAX_KEY_LENGTH + " characters");
+        }
+
+        return DataBufferUtils.join(request.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> {
+                    String requestHash = IdempotencyFilter.requestHash(body);
+                    return Mono.fromCallable(() -> idempotencyService.start(key, path, requestHash))
+                            .subscribeOn(scheduler)
+                            .flatMap(start -> start.replay() != null ?
+                                    replay(exchange.getResponse(), path, start.replay()) :
+                                    run(exchange, chain, body, requestHash, start.claim()));
+                })
+                .onErrorResume(TimeoutException.class, e -> writeError(exchange.getResponse(),
+                        HttpStatus.GATEWAY_TIMEOUT, "The request did not complete in time"))
+                .onErrorResume(IdempotencyKeyConflictException.class,
+                        e -> writeError(exchange.getResponse(), HttpStatus.CONFLICT, e.getMessage()))
+                .onErrorResume(PaymentException.class,
+                        e -> writeError(exchange.getResponse(), HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage()));
+    }
+
+    // The handler gets until the claim's lease runs out; after that another request may take the key
+    private Mono<Void> run(ServerWebExchange exchange, WebFilterChain chain, byte[] body, String requestHash,
+                           IdempotencyService.Claim claim) {
+        ServerHttpResponse response = exchange.getResponse();
+        CapturingResponse capturingResponse = new CapturingResponse(response);
+        AtomicBoolean settled = new AtomicBoolean();
+        return chain.filter(exchange.mutate()
+                        .request(new CachedBodyRequest(exchange.getRequest(), body))
+                        .response(capturingResponse)
+                        .build())
+                .timeout(properties.getInProgressLease())
+                .onErrorResume(e -> Mono.fromRunnable(() -> {
+                            settled.set(true);
+                            idempotencyService.release(claim);
+                        })
+                        .subscribeOn(scheduler)
+                        .then(Mono.error(e)))
+                .then(Mono.fromRunnable(() -> {
+                    settled.set(true);
+                    HttpStatusCode status = capturingResponse.getStatusCode();
+                    idempotencyService.finish(claim, new IdempotencyService.StoredResponse(requestHash,
+                            status == null ? 200 : status.value(), capturingResponse.captured.toByteArray()));
+                }).subscribeOn(scheduler))
+                // A client that disconnects mid-request cancels the chain; the key is not left held
+                .doOnCancel(() -> {
+                    if (settled.compareAndSet(false, true)) {
+                        scheduler.schedule(() -> idempotencyService.release(claim));
+                    }
+                })
+                .then(Mono.defer(() -> response.writeWith(
+                        Mono.just(response.bufferFactory().wrap(capturingResponse.captured.toByteArray())))));
+    }
+
+    private Mono<Void> replay(ServerHttpResponse response, String path, IdempotencyService.StoredResponse replay) {
+        log.info("Replaying response for {} {}", path, IdempotencyFilter.HEADER);
+        response.setStatusCode(HttpStatusCode.valueOf(replay.status()));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().set(IdempotencyFilter.REPLAYED_HEADER, "true");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(replay.body())));
+    }
+
+    private Mono<Void> writeError(ServerHttpResponse response, HttpStatus status, String message) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(ApiResponse.<Void>builder()
+                    .success(false)
+                    .message(message)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    // The body has already been read for hashing, so the controller reads this copy
+    private static class CachedBodyRequest extends ServerHttpRequestDecorator {
+        private final byte[] body;
+
+        CachedBodyRequest(ServerHttpRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+        }
+    }
+
+    // Keeps the body in memory so it can be stored before it is sent; status and headers go
+    // straight through to the real response
+    private static class CapturingResponse extends ServerHttpResponseDecorator {
+        private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        CapturingResponse(ServerHttpResponse response) {
+            super(response);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return Flux.from(body)
+                    .doOnNext(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        captured.writeBytes(bytes);
+                    })
+                    .then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.paymentprocessor.reactive;
+
+import com.example.paymentprocessor.constant.ExportFormat;
+import com.example.paymentprocessor.data.paystack.PaystackInitialization;
+import com.example.paymentprocessor.data.paystack.PaystackRecipient;
+import com.example.paymentprocessor.data.paystack.PaystackTransaction;
+import com.example.paymentprocessor.data.request.BatchVerificationRequest;
+import com.example.paymentprocessor.data.request.BulkWithdrawalRequest;
+import com.example.paymentprocessor.data.request.PaymentRequest;
+import com.example.paymentprocessor.data.request.TransactionFilter;
+import com.example.paymentprocessor.data.request.TransactionHistoryRequest;
+import com.example.paymentprocessor.data.request.TransferRecipientRequest;
+import com.example.paymentprocessor.data.request.TransferRequest;
+import com.example.paymentprocessor.data.response.ApiResponse;
+import com.example.paymentprocessor.data.response.TransactionDTO;
+import com.example.paymentprocessor.data.response.TransactionPage;
+import com.example.paymentprocessor.data.response.VerificationResult;
+import com.example.paymentprocessor.data.response.WithdrawalStatus;
+import com.example.paymentprocessor.model.Money;
+import com.example.paymentprocessor.service.BankListCache;
+import com.example.paymentprocessor.service.BatchVerificationService;
+import com.example.paymentprocessor.service.BulkWithdrawalService;
+import com.example.paymentprocessor.service.HistoryCursor;
+import com.example.paymentprocessor.service.PayStackServiceImpl;
+import com.example.paymentprocessor.service.PaymentService;
+import com.example.paymentprocessor.service.TransactionExportService;
+import com.example.paymentprocessor.service.WalletBalanceCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+// PaymentController's routes on WebFlux. Balance and history reads go through R2DBC; every other
+// route calls the same services as the servlet deployment on the bounded elastic scheduler, so
+// writes keep their JPA transactions, row locks and wallet rules unchanged.
+@RestController
+@RequestMapping("/api/v1/payments")
+@Validated
+@Tag(name = "Payment Operations", description = "APIs for handling payments, deposits and withdrawals")
+public class ReactivePaymentController {
+    private final PaymentService paymentService;
+    private final PayStackServiceImpl paystackService;
+    private final BatchVerificationService batchVerificationService;
+    private final BulkWithdrawalService bulkWithdrawalService;
+    private final BankListCache bankListCache;
+    private final TransactionExportService transactionExportService;
+    private final WalletBalanceCache balanceCache;
+    private final ReactiveWalletRepository walletRepository;
+    private final ReactiveTransactionRepository transactionRepository;
+
+    public ReactivePaymentController(PaymentService paymentService, PayStackServiceImpl paystackService,
+                                     BatchVerificationService batchVerificationService,
+                                     BulkWithdrawalService bulkWithdrawalService, BankListCache bankListCache,
+                                     TransactionExportService transactionExportService,
+                                     WalletBalanceCache balanceCache, ReactiveWalletRepository walletRepository,
+                                     ReactiveTransactionRepository transactionRepository) {
+        this.paymentService = paymentService;
+        this.paystackService = paystackService;
+        this.batchVerificationService = batchVerificationService;
+        this.bulkWithdrawalService = bulkWithdrawalService;
+        this.bankListCache = bankListCache;
+        this.transactionExportService = transactionExportService;
+        this.balanceCache = balanceCache;
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PostMapping("/deposit/initialize")
+    public Mono<ResponseEntity<ApiResponse<PaystackInitialization>>> initializeDeposit(
+            @Valid @RequestBody PaymentRequest request) {
+        return blocking(() -> ResponseEntity.ok(paymentService.initializeDeposit(request)));
+    }
+
+    @GetMapping("/verify/{reference}")
+    public Mono<ResponseEntity<ApiResponse<PaystackTransaction>>> verifyTransaction(
+            @PathVariable String reference) {
+        return blocking(() -> ResponseEntity.ok(paymentService.verifyTransaction(reference)));
+    }
+
+    @PostMapping("/verify/batch")
+    @Operation(summary = "Verify many transactions concurrently")
+    public Mono<ResponseEntity<ApiResponse<List<VerificationResult>>>> verifyTransactions(
+            @Valid @RequestBody BatchVerificationRequest request) {
+        return blocking(() -> ResponseEntity.ok(ApiResponse.<List<VerificationResult>>builder()
+            .success(true)
+            .message("Batch verification completed")
+            .data(batchVerificationService.verifyAll(request.getReferences()))
+            .timestamp(LocalDateTime.now())
+            .build()));
+    }
+
+    @PostMapping("/withdrawal")
+    @Operation(summary = "Debit the wallet and queue the withdrawal for sending to Paystack")
+    public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> initiateWithdrawal(
+            @Valid @RequestBody TransferRequest request) {
+        return blocking(() -> {
+            ApiResponse<Map<String, Object>> response = paymentService.initiateWithdrawal(request);
+            return ResponseEntity.status(response.isSuccess() ? HttpStatus.ACCEPTED : HttpStatus.OK).body(response);
+        });
+    }
+
+    @GetMapping("/withdrawal/{reference}")
+    @Operation(summary = "Status of a withdrawal and of its delivery to Paystack")
+    public Mono<ResponseEntity<ApiResponse<WithdrawalStatus>>> getWithdrawal(@PathVariable String reference) {
+        return blocking(() -> ResponseEntity.ok(ApiResponse.<WithdrawalStatus>builder()
+            .success(true)
+            .message("Withdrawal retrieved successfully")
+            .data(paymentService.getWithdrawalStatus(reference))
+            .timestamp(LocalDateTime.now())
+            .build()));
+    }
+
+    @PostMapping("/withdrawal/bulk")
+    @Operation(summary = "Submit many withdrawals as one Paystack bulk transfer")
+    public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> initiateBulkWithdrawal(
+            @Valid @RequestBody BulkWithdrawalRequest request) {
+        return blocking(() -> ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(bulkWithdrawalService.initiateBulkWithdrawal(request.getWithdrawals())));
+    }
+
+    @GetMapping("/withdrawal/bulk/{batchReference}")
+    @Operation(summary = "Per-item status of a bulk withdrawal")
+    public Mono<ResponseEntity<ApiResponse<List<TransactionDTO>>>> getBulkWithdrawal(
+            @PathVariable String batchReference) {
+        return blocking(() -> ResponseEntity.ok(ApiResponse.<List<TransactionDTO>>builder()
+            .success(true)
+            .message("Transactions retrieved successfully")
+            .data(paymentService.getBatchTransactions(batchReference))
+            .timestamp(LocalDateTime.now())
+            .build()));
+    }
+
+    @GetMapping("/user/{email}")
+    @Operation(summary = "Page through a user's transactions, newest first")
+    public Mono<ResponseEntity<ApiResponse<TransactionPage>>> getUserTransactions(
+            @PathVariable @Email String email, @Valid TransactionHistoryRequest request) {
+        HistoryCursor.Position after = HistoryCursor.decode(request.getCursor());
+        return transactionRepository.findHistory(email, request, after, request.getLimit() + 1)
+            .collectList()
+            .map(rows -> ResponseEntity.ok(ApiResponse.<TransactionPage>builder()
+                .success(true)
+                .message("Transactions retrieved successfully")
+                .data(HistoryCursor.page(rows, request.getLimit()))
+                .timestamp(LocalDateTime.now())
+                .build()));
+    }
+
+    // The export writes to a blocking stream inside a read-only JPA transaction; the bounded
+    // elastic thread running it hands the bytes to Netty as they are written
+    @GetMapping("/user/{email}/export")
+    @Operation(summary = "Stream a user's full transaction history as NDJSON or CSV, oldest first")
+    public ResponseEntity<Flux<DataBuffer>> exportUserTransactions(
+            @PathVariable @Email String email, TransactionFilter filter,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        boolean csv = exportFormat == ExportFormat.CSV;
+        Flux<DataBuffer> body = Flux.from(DataBufferUtils.outputStreamPublisher(
+            out -> transactionExportService.export(email, filter, exportFormat, out),
+            DefaultDataBufferFactory.sharedInstance,
+            task -> Schedulers.boundedElastic().schedule(task)));
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) :
+                new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transactions." + (csv ? "csv" : "ndjson"))
+                .build()
+                .toString())
+            .body(body);
+    }
+
+    @PostMapping("/recipients")
+    public Mono<ResponseEntity<ApiResponse<PaystackRecipient>>> createTransferRecipient(
+            @Valid @RequestBody TransferRecipientRequest request) {
+        return blocking(() -> ResponseEntity.ok(paystackService.createTransferRecipient(request)));
+    }
+
+    @GetMapping("/banks")
+    @Operation(summary = "List banks supported by Paystack (cached)")
+    public Mono<ResponseEntity<byte[]>> listBanks() {
+        return blocking(() -> ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(bankListCache.getSerializedResponse()));
+    }
+
+    // Same read path as WalletService.getBalance: the shared balance cache, then the ledger query
+    @GetMapping("/balance")
+    @Operation(summary = "Check wallet balance")
+    public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> checkBalance(
+            @RequestParam @Email(message = "Please provide a valid email address") String email) {
+        Money cached = balanceCache.getIfPresent(email);
+        long stamp = balanceCache.stamp(email);
+        Mono<Money> balance = cached != null ? Mono.just(cached) :
+            walletRepository.currentBalance(email)
+                .map(naira -> balanceCache.putLoaded(email, stamp, Money.ofNaira(naira)));
+        return balance.map(money -> ResponseEntity.ok(PaymentService.balanceResponse(email, money)));
+    }
+
+    @PutMapping("/wallet/shards")
+    @Operation(summary = "Spread a hot wallet's credits over several ledger shards")
+    public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> setWalletShards(
+            @RequestParam @Email(message = "Please provide a valid email address") String email,
+            @RequestParam int shards) {
+        return blocking(() -> ResponseEntity.ok(paymentService.setWalletShards(email, shards)));
+    }
+}
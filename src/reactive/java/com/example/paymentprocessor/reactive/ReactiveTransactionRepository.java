@@ -0,0 +1,71 @@
+package com.example.paymentprocessor.reactive;
+
+import com.example.paymentprocessor.constant.TransactionStatus;
+import com.example.paymentprocessor.constant.TransactionType;
+import com.example.paymentprocessor.data.request.TransactionFilter;
+import com.example.paymentprocessor.data.response.TransactionDTO;
+import com.example.paymentprocessor.model.Money;
+import com.example.paymentprocessor.service.HistoryCursor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Transaction history over R2DBC. Like TransactionRepositoryCustomImpl, filters that are not set
+// are left out of the SQL so Postgres can use the (email, created_at) index.
+@Repository
+public class ReactiveTransactionRepository {
+    private final DatabaseClient databaseClient;
+
+    public ReactiveTransactionRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<TransactionDTO> findHistory(String email, TransactionFilter filter,
+                                            HistoryCursor.Position after, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, reference, type, status, amount, email, created_at FROM transactions WHERE email = :email");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("email", email);
+        if (filter.getType() != null) {
+            sql.append(" AND type = :type");
+            parameters.put("type", filter.getType().name());
+        }
+        if (filter.getStatus() != null) {
+            sql.append(" AND status = :status");
+            parameters.put("status", filter.getStatus().name());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND created_at >= :from");
+            parameters.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND created_at < :to");
+            parameters.put("to", filter.getTo());
+        }
+        if (after != null) {
+            sql.append(" AND (created_at < :afterCreatedAt OR (created_at = :afterCreatedAt AND id < :afterId))");
+            parameters.put("afterCreatedAt", after.createdAt());
+            parameters.put("afterId", after.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+        parameters.put("limit", limit);
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(parameters)
+                .map(row -> TransactionDTO.builder()
+                        .id(row.get("id", Long.class))
+                        .reference(row.get("reference", String.class))
+                        .type(TransactionType.valueOf(row.get("type", String.class)))
+                        .status(TransactionStatus.valueOf(row.get("status", String.class)))
+                        .amount(Money.ofNaira(row.get("amount", BigDecimal.class)))
+                        .email(row.get("email", String.class))
+                        .createdAt(row.get("created_at", LocalDateTime.class))
+                        .build())
+                .all();
+    }
+}
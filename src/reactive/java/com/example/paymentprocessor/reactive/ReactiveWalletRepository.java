@@ -0,0 +1,25 @@
+package com.example.paymentprocessor.reactive;
+
+import com.example.paymentprocessor.repository.WalletLedgerEntryRepository;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+// Wallet reads over R2DBC, with the same SQL as WalletLedgerEntryRepository. Writes stay on JPA.
+@Repository
+public class ReactiveWalletRepository {
+    private final DatabaseClient databaseClient;
+
+    public ReactiveWalletRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<BigDecimal> currentBalance(String email) {
+        return databaseClient.sql("SELECT " + WalletLedgerEntryRepository.BALANCE_SQL + " AS balance")
+                .bind("email", email)
+                .map(row -> row.get("balance", BigDecimal.class))
+                .one();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.paymentprocessor.reactive;
+
+import com.example.paymentprocessor.service.PaystackWebhookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// PaystackWebhookController on WebFlux; storing the event is a JPA insert, so it runs off the event loop
+@RestController
+@RequestMapping("/api/v1/webhooks")
+@Tag(name = "Webhooks", description = "Paystack event notifications")
+public class ReactiveWebhookController {
+    private final PaystackWebhookService webhookService;
+
+    public ReactiveWebhookController(PaystackWebhookService webhookService) {
+        this.webhookService = webhookService;
+    }
+
+    @PostMapping("/paystack")
+    @Operation(summary = "Receive a signed Paystack event")
+    public Mono<ResponseEntity<Void>> receive(
+            @RequestBody byte[] payload,
+            @RequestHeader(value = "x-paystack-signature", required = false) String signature) {
+        if (!webhookService.isValidSignature(payload, signature)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        return Mono.fromRunnable(() -> webhookService.ingest(payload))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.just(ResponseEntity.ok().build()));
+    }
+}